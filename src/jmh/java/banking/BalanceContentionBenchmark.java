@@ -0,0 +1,85 @@
+package banking;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Every benchmark thread deposits to and withdraws from the same checking
+// account: a standalone lock-free account against a plain one behind a lock, and
+// a lock-free account in a ConcurrentBank against one under its stripe lock. Run
+// with -t N to choose the thread count.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class BalanceContentionBenchmark {
+	private static final String ID = "12345678";
+	private static final String OTHER_ID = "12345679";
+
+	Account lockFree;
+	Account locked;
+	ReentrantLock lock;
+	ConcurrentBank bank;
+
+	@Setup
+	public void setUp() {
+		lockFree = new Checking(0.0, 1.5).lockFree();
+		lockFree.depositIn(ID, 1000);
+		locked = new Checking(0.0, 1.5);
+		locked.depositIn(ID, 1000);
+		lock = new ReentrantLock();
+		bank = new ConcurrentBank();
+		bank.create(ID, new Checking(0.0, 1.5).lockFree());
+		bank.create(OTHER_ID, AccountType.CHECKING, 0, 1.5);
+		bank.depositIn(ID, 1000);
+		bank.depositIn(OTHER_ID, 1000);
+	}
+
+	@Benchmark
+	public void lockFree() {
+		lockFree.depositIn(ID, 25);
+		lockFree.withdrawFrom(ID, 25);
+	}
+
+	@Benchmark
+	public void locked() {
+		lock.lock();
+		try {
+			locked.depositIn(ID, 25);
+		} finally {
+			lock.unlock();
+		}
+		lock.lock();
+		try {
+			locked.withdrawFrom(ID, 25);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Benchmark
+	public void bankLockFree() {
+		bank.depositIn(ID, 25);
+		bank.withdrawFrom(ID, 25);
+	}
+
+	@Benchmark
+	public void bankLocked() {
+		bank.depositIn(OTHER_ID, 25);
+		bank.withdrawFrom(OTHER_ID, 25);
+	}
+}
@@ -0,0 +1,96 @@
+package banking;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// A batch of deposits, withdrawals and transfers over the checking and savings
+// accounts of a large bank, applied one call per command or as one
+// MutationBatch, including the time to fill the batch.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchBenchmark {
+	// With 1000 accounts a 10k batch names each one about twenty times, the case
+	// most in favour of looking each account up only once.
+	@Param({ "1000", "100000" })
+	int accounts;
+
+	@Param({ "10000" })
+	int batchSize;
+
+	@Param({ "false", "true" })
+	boolean concurrent;
+
+	Bank bank;
+	MutationBatch batch;
+	byte[] kinds;
+	String[] ids;
+	String[] targets;
+	double[] amounts;
+
+	@Setup
+	public void setUp() {
+		bank = concurrent ? new ConcurrentBank() : new Bank();
+		for (int i = 0; i < accounts; i++) {
+			bank.create(BenchmarkData.id(i), i % 2 == 0 ? AccountType.CHECKING : AccountType.SAVINGS, 0, 1.5);
+			bank.depositIn(BenchmarkData.id(i), 500);
+		}
+		batch = new MutationBatch(batchSize);
+		Random random = new Random(42);
+		kinds = new byte[batchSize];
+		ids = new String[batchSize];
+		targets = new String[batchSize];
+		amounts = new double[batchSize];
+		for (int i = 0; i < batchSize; i++) {
+			kinds[i] = (byte) random.nextInt(3);
+			ids[i] = BenchmarkData.id(random.nextInt(accounts));
+			targets[i] = BenchmarkData.id(random.nextInt(accounts));
+			amounts[i] = random.nextInt(300);
+		}
+	}
+
+	@Benchmark
+	public Bank oneByOne() {
+		for (int i = 0; i < batchSize; i++) {
+			if (kinds[i] == MutationBatch.DEPOSIT) {
+				bank.depositIn(ids[i], amounts[i]);
+			} else if (kinds[i] == MutationBatch.WITHDRAW) {
+				bank.withdrawFrom(ids[i], amounts[i]);
+			} else {
+				bank.transfer(ids[i], targets[i], amounts[i]);
+			}
+		}
+		return bank;
+	}
+
+	@Benchmark
+	public Bank applyBatch() {
+		batch.clear();
+		for (int i = 0; i < batchSize; i++) {
+			if (kinds[i] == MutationBatch.DEPOSIT) {
+				batch.deposit(ids[i], amounts[i]);
+			} else if (kinds[i] == MutationBatch.WITHDRAW) {
+				batch.withdraw(ids[i], amounts[i]);
+			} else {
+				batch.transfer(ids[i], targets[i], amounts[i]);
+			}
+		}
+		bank.applyBatch(batch);
+		return bank;
+	}
+}
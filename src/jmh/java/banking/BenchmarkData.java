@@ -0,0 +1,77 @@
+package banking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+final class BenchmarkData {
+	private static final int FIRST_ID = 10000000;
+
+	private BenchmarkData() {
+	}
+
+	static String id(int account) {
+		return Integer.toString(FIRST_ID + account);
+	}
+
+	static List<String> createCommands(int accounts) {
+		List<String> commands = new ArrayList<>(accounts * 2);
+		for (int i = 0; i < accounts; i++) {
+			switch (i % 3) {
+			case 0:
+				commands.add("create checking " + id(i) + " 1.5");
+				commands.add("deposit " + id(i) + " 900");
+				break;
+			case 1:
+				commands.add("create savings " + id(i) + " 2.5");
+				commands.add("deposit " + id(i) + " 2000");
+				break;
+			default:
+				commands.add("create cd " + id(i) + " 3.5 5000");
+				break;
+			}
+		}
+		return commands;
+	}
+
+	static Bank bank(int accounts) {
+		Bank bank = new Bank();
+		CommandProcessor processor = new CommandProcessor(bank);
+		for (String command : createCommands(accounts)) {
+			processor.processCommand(command);
+		}
+		return bank;
+	}
+
+	// Checking accounts are ids 0, 3, 6, ...; savings 1, 4, 7, ...; CDs 2, 5, 8, ...
+	static String command(String operation, int accounts, Random random) {
+		int checking = random.nextInt((accounts + 2) / 3) * 3;
+		int savings = Math.min(checking + 1, accounts - 1);
+		switch (operation) {
+		case "create":
+			return "create savings " + id(accounts + random.nextInt(accounts)) + " 0.6";
+		case "deposit":
+			return "deposit " + id(random.nextBoolean() ? checking : savings) + " " + random.nextInt(900);
+		case "withdraw":
+			return "withdraw " + id(random.nextBoolean() ? checking : savings) + " " + random.nextInt(300);
+		case "transfer":
+			return "transfer " + id(checking) + " " + id(savings) + " " + random.nextInt(300);
+		case "pass":
+			return "pass " + (1 + random.nextInt(60));
+		default:
+			return "depositt " + id(checking) + " 100";
+		}
+	}
+
+	static List<String> workload(int accounts, int commands, long seed) {
+		Random random = new Random(seed);
+		List<String> workload = createCommands(accounts);
+		String[] operations = { "deposit", "deposit", "deposit", "withdraw", "withdraw", "transfer", "transfer",
+				"create", "invalid" };
+		for (int i = 0; i < commands; i++) {
+			workload.add(command(operations[random.nextInt(operations.length)], accounts, random));
+		}
+		workload.add("pass 1");
+		return workload;
+	}
+}
@@ -0,0 +1,120 @@
+package banking;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Opens `clients` connections to a CommandServer and has each one send
+// `commands` deposits, withdrawals and transfers on accounts of its own, one at
+// a time, timing every round trip. Prints throughput and latency percentiles.
+//
+// Usage: CommandLoadClient [clients] [commands] [port]. Without a port an
+// in-process server is started on a free one.
+public class CommandLoadClient {
+
+	public static void main(String[] args) throws Exception {
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int commands = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		CommandServer server = null;
+		int port;
+		if (args.length > 2) {
+			port = Integer.parseInt(args[2]);
+		} else {
+			server = new CommandServer(0);
+			server.start();
+			port = server.getPort();
+		}
+		try {
+			run(clients, commands, port);
+		} finally {
+			if (server != null) {
+				server.close();
+			}
+		}
+	}
+
+	static void run(int clients, int commands, int port) throws Exception {
+		ExecutorService executor = CommandServer.newSessionExecutor();
+		List<Future<long[]>> results = new ArrayList<>();
+		long start = System.nanoTime();
+		for (int i = 0; i < clients; i++) {
+			int client = i;
+			results.add(executor.submit(() -> session(client, commands, port)));
+		}
+		long[] latencies = new long[clients * commands];
+		int count = 0;
+		for (Future<long[]> result : results) {
+			long[] session = result.get();
+			System.arraycopy(session, 0, latencies, count, session.length);
+			count += session.length;
+		}
+		long elapsed = System.nanoTime() - start;
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+
+		Arrays.sort(latencies, 0, count);
+		System.out.printf("clients=%d commands=%d elapsed=%.1f ms throughput=%.0f commands/s%n", clients, count,
+				elapsed / 1e6, count / (elapsed / 1e9));
+		System.out.printf("latency p50=%.1f us p99=%.1f us max=%.1f us%n", percentile(latencies, count, 50) / 1e3,
+				percentile(latencies, count, 99) / 1e3, latencies[count - 1] / 1e3);
+	}
+
+	private static long percentile(long[] sorted, int count, int percent) {
+		int index = (int) Math.ceil(percent / 100.0 * count) - 1;
+		return sorted[Math.max(0, index)];
+	}
+
+	private static long[] session(int client, int commands, int port) throws IOException {
+		Random random = new Random(client);
+		String checking = Integer.toString(10000000 + client * 2);
+		String savings = Integer.toString(10000001 + client * 2);
+		long[] latencies = new long[commands];
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+				BufferedReader reader = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				PrintWriter writer = new PrintWriter(
+						new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+			send(writer, reader, "create checking " + checking + " 1.5");
+			send(writer, reader, "create savings " + savings + " 2.5");
+			for (int i = 0; i < commands; i++) {
+				String command;
+				switch (random.nextInt(4)) {
+				case 0:
+					command = "withdraw " + checking + " " + random.nextInt(300);
+					break;
+				case 1:
+					command = "transfer " + checking + " " + savings + " " + random.nextInt(300);
+					break;
+				default:
+					command = "deposit " + checking + " " + random.nextInt(900);
+					break;
+				}
+				long begin = System.nanoTime();
+				send(writer, reader, command);
+				latencies[i] = System.nanoTime() - begin;
+			}
+		}
+		return latencies;
+	}
+
+	private static String send(PrintWriter writer, BufferedReader reader, String command) throws IOException {
+		writer.println(command);
+		String reply = reader.readLine();
+		if (reply == null) {
+			throw new IOException("Server closed the connection");
+		}
+		return reply;
+	}
+}
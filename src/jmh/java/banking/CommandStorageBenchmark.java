@@ -0,0 +1,90 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CommandStorageBenchmark {
+	private static final int HISTORY_PER_ACCOUNT = 10;
+
+	@Param({ "1000", "100000" })
+	int accounts;
+
+	CommandStorage commandStorage;
+	String[] ids;
+	int next;
+
+	@Setup
+	public void setUp() {
+		Bank bank = new Bank();
+		MasterControl masterControl = new MasterControl(new Validator(bank), new CommandProcessor(bank),
+				commandStorage = new CommandStorage(bank));
+		List<String> input = BenchmarkData.createCommands(accounts);
+		Random random = new Random(42);
+		for (int i = 0; i < accounts * HISTORY_PER_ACCOUNT; i++) {
+			input.add(BenchmarkData.command(random.nextBoolean() ? "deposit" : "withdraw", accounts, random));
+		}
+		masterControl.start(input);
+		ids = bank.getAccountNumber().toArray(new String[0]);
+	}
+
+	@Benchmark
+	public List<String> output() {
+		return commandStorage.output();
+	}
+
+	@Benchmark
+	public long outputToChannel() throws IOException {
+		DiscardingChannel channel = new DiscardingChannel();
+		commandStorage.output(channel);
+		return channel.written;
+	}
+
+	@Benchmark
+	public String formatAccountStatus() {
+		return commandStorage.formatAccountStatus(ids[next++ % ids.length]);
+	}
+
+	// Counts the bytes and keeps none, so only producing them is measured.
+	static class DiscardingChannel implements WritableByteChannel {
+		long written;
+
+		@Override
+		public int write(ByteBuffer source) {
+			int bytes = source.remaining();
+			source.position(source.limit());
+			written += bytes;
+			return bytes;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// MasterControl with a journal, for group sizes from one sync per command to one
+// per thousand, under a short and a long group window. Run with
+// -Djava.io.tmpdir=<dir> to journal to the disk being measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalBenchmark {
+	@Param({ "1", "10", "100", "1000" })
+	int groupSize;
+
+	@Param({ "1", "100" })
+	long windowMillis;
+
+	@Param({ "10000" })
+	int commands;
+
+	List<String> input;
+	Path file;
+
+	@Setup
+	public void setUp() {
+		input = BenchmarkData.workload(1000, commands, 42);
+	}
+
+	@Setup(Level.Invocation)
+	public void createJournal() throws IOException {
+		file = Files.createTempFile("journal", ".log");
+	}
+
+	@TearDown(Level.Invocation)
+	public void deleteJournal() throws IOException {
+		Files.delete(file);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(10000)
+	public List<String> start() throws IOException {
+		Bank bank = new Bank();
+		try (CommandJournal journal = new CommandJournal(file, groupSize, windowMillis, TimeUnit.MILLISECONDS)) {
+			return new MasterControl(new Validator(bank), new CommandProcessor(bank), new CommandStorage(bank), journal)
+					.start(input);
+		}
+	}
+}
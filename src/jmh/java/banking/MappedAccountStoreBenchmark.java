@@ -0,0 +1,104 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The same bank over a HeapAccountStore and over a MappedAccountStore: single
+// commands, passing time over every account, and opening the mapped file again
+// against creating the accounts from their commands.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappedAccountStoreBenchmark {
+	private static final int COMMANDS = 1024;
+
+	@Param({ "100000" })
+	int accounts;
+
+	@Param({ "heap", "mapped" })
+	String store;
+
+	Path file;
+	MappedAccountStore mapped;
+	Bank bank;
+	CommandProcessor commandProcessor;
+	String[] commands;
+	int next;
+
+	@Setup
+	public void setUp() throws IOException {
+		file = Files.createTempFile("accounts", ".ledger");
+		Files.delete(file);
+		if (store.equals("mapped")) {
+			mapped = new MappedAccountStore(file);
+			bank = new Bank(mapped);
+		} else {
+			bank = new Bank();
+		}
+		commandProcessor = new CommandProcessor(bank);
+		for (String command : BenchmarkData.createCommands(accounts)) {
+			commandProcessor.processCommand(command);
+		}
+		Random random = new Random(42);
+		commands = new String[COMMANDS];
+		for (int i = 0; i < COMMANDS; i++) {
+			commands[i] = BenchmarkData.command(random.nextBoolean() ? "deposit" : "withdraw", accounts, random);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		if (mapped != null) {
+			mapped.close();
+		}
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public void processCommand() {
+		commandProcessor.processCommand(commands[next++ & (COMMANDS - 1)]);
+	}
+
+	@Benchmark
+	public Bank passTime() {
+		bank.passTime(1, false);
+		return bank;
+	}
+
+	// Reopening the mapped file on the one hand, recreating every account on the
+	// other.
+	@Benchmark
+	public Bank restart() throws IOException {
+		if (mapped != null) {
+			try (MappedAccountStore reopened = new MappedAccountStore(file)) {
+				return new Bank(reopened);
+			}
+		}
+		Bank restarted = new Bank();
+		CommandProcessor processor = new CommandProcessor(restarted);
+		for (String command : BenchmarkData.createCommands(accounts)) {
+			processor.processCommand(command);
+		}
+		return restarted;
+	}
+}
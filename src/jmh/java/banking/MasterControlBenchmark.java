@@ -0,0 +1,64 @@
+package banking;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MasterControlBenchmark {
+	@Param({ "1000" })
+	int accounts;
+
+	@Param({ "100000" })
+	int commands;
+
+	@Param({ "4" })
+	int shards;
+
+	List<String> input;
+
+	@Setup
+	public void setUp() {
+		input = BenchmarkData.workload(accounts, commands, 42);
+	}
+
+	@Benchmark
+	public List<String> start() {
+		Bank bank = new Bank();
+		return new MasterControl(new Validator(bank), new CommandProcessor(bank), new CommandStorage(bank))
+				.start(input);
+	}
+
+	@Benchmark
+	public List<String> startPipelined() {
+		Bank bank = new Bank();
+		return new PipelinedMasterControl(new Validator(bank), new CommandProcessor(bank), new CommandStorage(bank))
+				.start(input);
+	}
+
+	@Benchmark
+	public List<String> startOptimistic() {
+		return new OptimisticMasterControl(new Bank(), shards).start(input);
+	}
+
+	@Benchmark
+	public List<String> startSharded() {
+		return new ShardedMasterControl(shards).start(input);
+	}
+}
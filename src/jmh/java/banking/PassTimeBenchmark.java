@@ -0,0 +1,45 @@
+package banking;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PassTimeBenchmark {
+	@Param({ "1000", "100000", "1000000" })
+	int accounts;
+
+	@Param({ "1", "60" })
+	int months;
+
+	@Param({ "false", "true" })
+	boolean parallel;
+
+	Bank bank;
+
+	@Setup
+	public void setUp() {
+		bank = BenchmarkData.bank(accounts);
+	}
+
+	@Benchmark
+	public Bank passTime() {
+		bank.passTime(months, parallel);
+		return bank;
+	}
+}
@@ -0,0 +1,82 @@
+package banking;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// 95% reads of one account's balance, APR, type and age, 5% deposits and
+// withdrawals, from every benchmark thread. optimistic reads through query,
+// locked through the getters, which take the stripe lock. Run with -t 1, 2, 4, ...
+// to see how reads scale with threads.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class QueryBenchmark {
+	private static final int WRITE_PERCENT = 5;
+
+	@Param({ "1024" })
+	int accounts;
+
+	ConcurrentBank bank;
+	String[] ids;
+
+	@Setup
+	public void setUp() {
+		bank = new ConcurrentBank();
+		ids = new String[accounts];
+		for (int i = 0; i < accounts; i++) {
+			ids[i] = BenchmarkData.id(i);
+			bank.create(ids[i], AccountType.SAVINGS, 0, 2.5);
+			bank.depositIn(ids[i], 1000);
+		}
+	}
+
+	@Benchmark
+	public double optimistic() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String id = ids[random.nextInt(accounts)];
+		if (write(random, id)) {
+			return 0;
+		}
+		AccountSnapshot snapshot = bank.query(id);
+		return snapshot.getAmount() + snapshot.getAPR() + snapshot.getTime() + snapshot.getType().ordinal();
+	}
+
+	@Benchmark
+	public double locked() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String id = ids[random.nextInt(accounts)];
+		if (write(random, id)) {
+			return 0;
+		}
+		return bank.getAmount(id) + bank.getAPR(id) + bank.getTime(id) + bank.getType(id).ordinal();
+	}
+
+	private boolean write(ThreadLocalRandom random, String id) {
+		if (random.nextInt(100) >= WRITE_PERCENT) {
+			return false;
+		}
+		if (random.nextBoolean()) {
+			bank.depositIn(id, 10);
+		} else {
+			bank.withdrawFrom(id, 10);
+		}
+		return true;
+	}
+}
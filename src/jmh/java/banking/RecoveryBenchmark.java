@@ -0,0 +1,82 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Restart from a journal of commands with a snapshot taken tail commands before
+// its end: replaying the whole journal against loading the snapshot and
+// replaying the tail.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecoveryBenchmark {
+	@Param({ "200000" })
+	int commands;
+
+	@Param({ "1000", "20000" })
+	int tail;
+
+	Path journalFile;
+	Path snapshotFile;
+
+	@Setup
+	public void setUp() throws IOException {
+		List<String> input = BenchmarkData.workload(1000, commands, 42);
+		journalFile = Files.createTempFile("journal", ".log");
+		snapshotFile = Files.createTempFile("snapshot", ".bin");
+		Files.delete(snapshotFile);
+		Bank bank = new Bank();
+		try (CommandJournal journal = new CommandJournal(journalFile);
+				BankSnapshots snapshots = new BankSnapshots(snapshotFile, Integer.MAX_VALUE)) {
+			MasterControl masterControl = new MasterControl(new Validator(bank), new CommandProcessor(bank),
+					new CommandStorage(bank), journal, snapshots);
+			masterControl.start(input.subList(0, commands - tail));
+			masterControl.snapshot();
+			masterControl.start(input.subList(commands - tail, commands));
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.delete(journalFile);
+		Files.delete(snapshotFile);
+	}
+
+	private MasterControl masterControl() {
+		Bank bank = new Bank();
+		return new MasterControl(new Validator(bank), new CommandProcessor(bank), new CommandStorage(bank));
+	}
+
+	@Benchmark
+	public MasterControl wholeJournal() throws IOException {
+		MasterControl masterControl = masterControl();
+		masterControl.recover(journalFile);
+		return masterControl;
+	}
+
+	@Benchmark
+	public MasterControl snapshotAndTail() throws IOException {
+		MasterControl masterControl = masterControl();
+		masterControl.recover(snapshotFile, journalFile);
+		return masterControl;
+	}
+}
@@ -0,0 +1,52 @@
+package banking;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The pause a snapshot puts between two commands, capture, against the work
+// left for the writer thread, image, over 1000 accounts and a history of
+// commands lines.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotBenchmark {
+	@Param({ "20000", "200000" })
+	int commands;
+
+	CommandStorage storage;
+	BankSnapshots.Capture capture;
+
+	@Setup
+	public void setUp() throws IOException {
+		Bank bank = new Bank();
+		storage = new CommandStorage(bank);
+		new MasterControl(new Validator(bank), new CommandProcessor(bank), storage)
+				.start(BenchmarkData.workload(1000, commands, 42));
+		capture = BankSnapshots.capture(storage, 0);
+	}
+
+	@Benchmark
+	public BankSnapshots.Capture capture() throws IOException {
+		return BankSnapshots.capture(storage, 0);
+	}
+
+	@Benchmark
+	public byte[] image() throws IOException {
+		return capture.image();
+	}
+}
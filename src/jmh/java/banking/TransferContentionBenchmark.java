@@ -0,0 +1,73 @@
+package banking;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Random transfers between checking accounts from every benchmark thread; run with
+// -t N to choose the thread count. Whole-dollar amounts keep every balance an
+// exact double, so the total is checked for exact conservation after each
+// iteration.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class TransferContentionBenchmark {
+	private static final double OPENING_BALANCE = 1000;
+
+	@Param({ "16", "1024", "65536" })
+	int accounts;
+
+	@Param({ "64" })
+	int stripes;
+
+	ConcurrentBank bank;
+	String[] ids;
+
+	@Setup
+	public void setUp() {
+		bank = new ConcurrentBank(stripes);
+		ids = new String[accounts];
+		for (int i = 0; i < accounts; i++) {
+			ids[i] = BenchmarkData.id(i);
+			bank.create(ids[i], AccountType.CHECKING, 0, 1.5);
+			bank.depositIn(ids[i], OPENING_BALANCE);
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void checkTotal() {
+		double total = 0;
+		for (String id : ids) {
+			total += bank.getAmount(id);
+		}
+		if (total != accounts * OPENING_BALANCE) {
+			throw new IllegalStateException("Total balance " + total + " != " + accounts * OPENING_BALANCE);
+		}
+	}
+
+	@Benchmark
+	public void transfer() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String from = ids[random.nextInt(accounts)];
+		String to = ids[random.nextInt(accounts)];
+		bank.transfer(from, to, random.nextInt(400));
+	}
+}
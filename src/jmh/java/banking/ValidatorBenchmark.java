@@ -0,0 +1,49 @@
+package banking;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+	private static final int COMMANDS = 1024;
+	private static final int ACCOUNTS = 1000;
+
+	@Param({ "create", "deposit", "withdraw", "transfer", "pass", "invalid" })
+	String operation;
+
+	Validator validator;
+	String[] commands;
+	int next;
+
+	@Setup
+	public void setUp() {
+		validator = new Validator(BenchmarkData.bank(ACCOUNTS));
+		Random random = new Random(42);
+		commands = new String[COMMANDS];
+		for (int i = 0; i < COMMANDS; i++) {
+			commands[i] = BenchmarkData.command(operation, ACCOUNTS, random);
+		}
+	}
+
+	@Benchmark
+	public boolean validate() {
+		return validator.validate(commands[next++ & (COMMANDS - 1)]);
+	}
+}
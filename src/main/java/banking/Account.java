@@ -1,54 +1,116 @@
 package banking;
 
-public abstract class Account extends Bank {
+public abstract class Account {
+	static final int CD_PERIODS_PER_MONTH = 4;
 
-	public double APR;
-	public double amount;
-	public int time = 0;
-	public String accountType;
+	// The account's state lives in a slot of an AccountStore, its own until it is
+	// created in a bank and the bank's after that, and is read through the getters.
+	private AccountStore store;
+	private int slot;
+	private boolean attached;
 
-	Account(double amount, double Apr) {
-		this.amount = amount;
-		this.APR = Apr;
-		this.time = 0;
+	Account(AccountType type, double amount, double Apr) {
+		this.store = new HeapAccountStore(1);
+		this.slot = store.allocate(null, type, amount, Apr, 0, false);
 
 	}
 
-	@Override
-	public abstract void depositIn(String id, double amount);
+	Account(AccountStore store, int slot) {
+		this.store = store;
+		this.slot = slot;
+		this.attached = true;
+	}
 
-	public abstract void setTime(int time);
+	static Account of(AccountStore store, int slot) {
+		switch (store.type(slot)) {
+		case CHECKING:
+			return new Checking(store, slot);
+		case SAVINGS:
+			return new Savings(store, slot);
+		default:
+			return new CD(store, slot);
+		}
+	}
 
-	@Override
-	public abstract void withdrawFrom(String id, double amount);
+	int attach(String id, AccountStore bankStore) {
+		int bankSlot = bankStore.allocate(id, store.type(slot), store.balance(slot), store.apr(slot), store.age(slot),
+				store.withdrawn(slot));
+		if (store.lockFree(slot)) {
+			bankStore.makeLockFree(bankSlot);
+		}
+		store = bankStore;
+		slot = bankSlot;
+		attached = true;
+		return bankSlot;
+	}
+
+	// Makes a standalone account lock-free, for accounts that many threads deposit
+	// to and withdraw from at once; creating it in a bank keeps the mode in the
+	// bank's store. An account already in a bank is made lock-free through
+	// Bank.makeLockFree instead, under the bank's own locking.
+	Account lockFree() {
+		if (attached) {
+			throw new IllegalStateException("Account is in a bank; use Bank.makeLockFree");
+		}
+		store.makeLockFree(slot);
+		return this;
+	}
+
+	AccountStore store() {
+		return store;
+	}
+
+	int slot() {
+		return slot;
+	}
+
+	public void depositIn(String id, double amount) {
+		store.deposit(slot, amount);
+	}
+
+	public void setTime(int time) {
+		store.setAge(slot, time);
+	}
+
+	public int getTime() {
+		return store.age(slot);
+	}
+
+	public void withdrawFrom(String id, double amount) {
+		store.withdraw(slot, amount);
+	}
 
-	@Override
 	public double getAmount(String id) {
-		return amount;
+		return store.balance(slot);
 	}
 
 	public double getAPR(String id) {
-		return this.APR;
+		return store.apr(slot);
 	}
 
 	public void passTimeCalc(String id, int months) {
-		time += months;
-		if (accountType.equalsIgnoreCase("CD")) {
-			for (int i = 0; i < months; i++) {
-				for (int j = 0; j < 4; j++) {
-					this.amount += ((APR / 100) / 12) * this.amount;
-
-				}
-			}
-		} else {
-			for (int i = 0; i < months; i++) {
-				this.amount += ((APR / 100) / 12) * this.amount;
-			}
-		}
+		store.compound(slot, months);
 
 	}
 
 	public String getAccountType() {
-		return accountType;
+		return store.type(slot).getName();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof Account)) {
+			return false;
+		}
+		Account account = (Account) other;
+		return store == account.store && slot == account.slot;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(store) * 31 + slot;
 	}
 }
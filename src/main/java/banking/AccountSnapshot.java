@@ -0,0 +1,39 @@
+package banking;
+
+// The state of one account at a single point in time, as returned by
+// Bank.query.
+public class AccountSnapshot {
+	private final String id;
+	private final AccountType type;
+	private final double amount;
+	private final double apr;
+	private final int time;
+
+	AccountSnapshot(String id, AccountType type, double amount, double apr, int time) {
+		this.id = id;
+		this.type = type;
+		this.amount = amount;
+		this.apr = apr;
+		this.time = time;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public AccountType getType() {
+		return type;
+	}
+
+	public double getAmount() {
+		return amount;
+	}
+
+	public double getAPR() {
+		return apr;
+	}
+
+	public int getTime() {
+		return time;
+	}
+}
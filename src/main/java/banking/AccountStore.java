@@ -0,0 +1,151 @@
+package banking;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+// Account state by slot. Slots are handed out by allocate and given back by
+// release; live slots are walked in creation order with first and next.
+// HeapAccountStore keeps the state in arrays, MappedAccountStore in a file.
+public abstract class AccountStore {
+	static final int NONE = -1;
+	static final byte FREE = -1;
+	static final int TYPE_COUNT = AccountType.values().length;
+	private static final int PARALLEL_GRAIN = 16 * InterestEngine.BLOCK;
+
+	abstract int allocate(String id, AccountType type, double balance, double apr, int age,
+			boolean withdrawnThisMonth);
+
+	abstract boolean full();
+
+	abstract void grow();
+
+	abstract void release(int slot);
+
+	public abstract int size();
+
+	abstract int first();
+
+	abstract int next(int slot);
+
+	abstract String id(int slot);
+
+	abstract AccountSnapshot snapshot(int slot);
+
+	public abstract AccountType type(int slot);
+
+	public abstract double balance(int slot);
+
+	public abstract double apr(int slot);
+
+	public abstract int age(int slot);
+
+	public abstract boolean withdrawn(int slot);
+
+	// Whether deposit and withdraw on the slot are compare-and-set loops that can
+	// run on many threads at once. A new slot is not; makeLockFree turns it on
+	// until the slot is released. Stores without the mode have no lock-free slots.
+	boolean lockFree(int slot) {
+		return false;
+	}
+
+	void makeLockFree(int slot) {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " has no lock-free slots");
+	}
+
+	abstract void deposit(int slot, double amount);
+
+	abstract void withdraw(int slot, double amount);
+
+	abstract void setAge(int slot, int age);
+
+	abstract void compound(int slot, int months);
+
+	// Every slot ever handed out is below this.
+	abstract int limit();
+
+	// passTime for the slots from..to, returning the ones found empty instead of
+	// closing them.
+	abstract int[] passTime(int months, int from, int to);
+
+	// Accounts that are empty when time passes are closed and their slots go back
+	// on the free list; the rest pay the low balance fee, age and earn interest.
+	void passTime(int months, Consumer<String> closed) {
+		close(passTime(months, 0, limit()), closed);
+	}
+
+	// Same result as passTime: each fork-join task does one range of slots and
+	// returns the slots it found empty, and closing them is left to one merge at
+	// the end, since the free list and creation order links are shared.
+	void passTimeParallel(int months, Consumer<String> closed) {
+		close(ForkJoinPool.commonPool().invoke(new PassTimeTask(months, 0, limit())), closed);
+	}
+
+	private void close(int[] slots, Consumer<String> closed) {
+		for (int slot : slots) {
+			closed.accept(id(slot));
+			release(slot);
+		}
+	}
+
+	static double remaining(byte type, double balance, double amount) {
+		if (type == AccountType.CHECKING.ordinal()) {
+			balance = balance - amount;
+			if (balance < 0.00) {
+				balance = 0;
+			}
+		} else if (type == AccountType.SAVINGS.ordinal()) {
+			balance = balance - amount;
+			if (balance <= 0.00) {
+				balance = 0;
+			}
+		} else if (type == AccountType.CD.ordinal()) {
+			if (amount >= balance) {
+				balance = balance - amount;
+			}
+			if (balance <= 0.00) {
+				balance = 0;
+			}
+		}
+		return balance;
+	}
+
+	static int periodsPerMonth(byte type) {
+		if (type == AccountType.CD.ordinal()) {
+			return Account.CD_PERIODS_PER_MONTH;
+		}
+		return 1;
+	}
+
+	private class PassTimeTask extends RecursiveTask<int[]> {
+		private static final long serialVersionUID = 1L;
+		private final int months;
+		private final int from;
+		private final int to;
+
+		PassTimeTask(int months, int from, int to) {
+			this.months = months;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected int[] compute() {
+			if (to - from <= PARALLEL_GRAIN) {
+				return passTime(months, from, to);
+			}
+			int middle = from + (to - from) / 2 / InterestEngine.BLOCK * InterestEngine.BLOCK;
+			PassTimeTask left = new PassTimeTask(months, from, middle);
+			left.fork();
+			int[] right = new PassTimeTask(months, middle, to).compute();
+			int[] closed = left.join();
+			if (right.length == 0) {
+				return closed;
+			}
+			int[] merged = Arrays.copyOf(closed, closed.length + right.length);
+			System.arraycopy(right, 0, merged, closed.length, right.length);
+			return merged;
+		}
+	}
+}
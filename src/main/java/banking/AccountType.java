@@ -0,0 +1,30 @@
+package banking;
+
+public enum AccountType {
+	CHECKING("Checking"), SAVINGS("Savings"), CD("Cd");
+
+	private static final AccountType[] TYPES = values();
+
+	private final String name;
+
+	AccountType(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	static AccountType of(CommandTokenizer tokens, int index) {
+		for (AccountType type : TYPES) {
+			if (tokens.is(index, type.name)) {
+				return type;
+			}
+		}
+		return null;
+	}
+
+	static AccountType of(int ordinal) {
+		return TYPES[ordinal];
+	}
+}
@@ -3,72 +3,235 @@ package banking;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class Bank {
+	static final int PARALLEL_PASS_TIME = 1 << 16;
 
-	private final HashMap<String, Object> bank;
-	private final ArrayList<String> accountNumber = new ArrayList<>();;
+	private final AccountStore accounts;
+	private final IdIndex slots = new IdIndex();
+	private final HashMap<String, Integer> otherSlots;
 
 	Bank() {
-		bank = new HashMap<String, Object>();
+		this(new HeapAccountStore());
 
 	}
 
+	// A bank over the accounts already in a store, such as a MappedAccountStore
+	// opened again after a restart. Only the id index has to be built.
+	Bank(AccountStore accounts) {
+		this.accounts = accounts;
+		otherSlots = new HashMap<String, Integer>();
+		for (int slot = accounts.first(); slot != AccountStore.NONE; slot = accounts.next(slot)) {
+			index(accounts.id(slot), slot);
+		}
+	}
+
 	public ArrayList<String> getAccountNumber() {
+		ArrayList<String> accountNumber = new ArrayList<>(accounts.size());
+		for (int slot = accounts.first(); slot != AccountStore.NONE; slot = accounts.next(slot)) {
+			accountNumber.add(accounts.id(slot));
+		}
 		return accountNumber;
 	}
 
 	public void create(String id, Account account) {
-		bank.put(id, account);
-		accountNumber.add(id);
+		put(id, account.attach(id, accounts));
+	}
+
+	void create(String id, AccountType type, double amount, double apr) {
+		restore(id, type, amount, apr, 0, false);
+	}
+
+	// Opens an account exactly as it was, for loading a snapshot.
+	void restore(String id, AccountType type, double balance, double apr, int age, boolean withdrawn) {
+		put(id, accounts.allocate(id, type, balance, apr, age, withdrawn));
+	}
+
+	void put(String id, int slot) {
+		int previous = index(id, slot);
+		if (previous != IdIndex.NONE) {
+			accounts.release(previous);
+		}
+	}
+
+	private int index(String id, int slot) {
+		int key = IdIndex.key(id);
+		if (key != IdIndex.NONE) {
+			return slots.put(key, slot);
+		}
+		Integer other = otherSlots.put(id, slot);
+		return other == null ? IdIndex.NONE : other;
+	}
+
+	int slotOf(String id) {
+		int key = IdIndex.key(id);
+		if (key != IdIndex.NONE) {
+			return slots.get(key);
+		}
+		Integer slot = otherSlots.get(id);
+		if (slot == null) {
+			return IdIndex.NONE;
+		}
+		return slot;
+	}
+
+	int removeSlot(String id) {
+		int key = IdIndex.key(id);
+		if (key != IdIndex.NONE) {
+			return slots.remove(key);
+		}
+		Integer slot = otherSlots.remove(id);
+		if (slot == null) {
+			return IdIndex.NONE;
+		}
+		return slot;
 	}
 
 	public Account getId(String id) {
-		return (Account) bank.get(id);
+		int slot = slotOf(id);
+		if (slot == IdIndex.NONE) {
+			return null;
+		}
+		return Account.of(accounts, slot);
+
+	}
+
+	public AccountSnapshot query(String id) {
+		int slot = slotOf(id);
+		if (slot == IdIndex.NONE) {
+			return null;
+		}
+		return accounts.snapshot(slot);
+	}
+
+	// One snapshot per id, in order, with null for ids that have no account. Each
+	// snapshot is consistent on its own; together they need not be from one
+	// moment.
+	public List<AccountSnapshot> query(List<String> ids) {
+		List<AccountSnapshot> snapshots = new ArrayList<>(ids.size());
+		for (String id : ids) {
+			snapshots.add(query(id));
+		}
+		return snapshots;
+	}
 
+	AccountStore getAccounts() {
+		return accounts;
 	}
 
-	HashMap<String, Object> getAccounts() {
-		return bank;
+	AccountType getType(String id) {
+		int slot = slotOf(id);
+		if (slot == IdIndex.NONE) {
+			return null;
+		}
+		return accounts.type(slot);
 	}
 
 	public double getAmount(String id) {
-		Account account = (Account) bank.get(id);
+		return accounts.balance(slotOf(id));
+	}
+
+	double getAPR(String id) {
+		return accounts.apr(slotOf(id));
+	}
+
+	int getTime(String id) {
+		return accounts.age(slotOf(id));
+	}
 
-		return account.getAmount(id);
+	boolean getWithdrawalStatus(String id) {
+		return accounts.withdrawn(slotOf(id));
 	}
 
 	public void bankTransfer(String transferFrom, String transferTo, Double amount) {
-		Account accountTo = (Account) bank.get(transferTo);
-		Account accountFrom = (Account) bank.get(transferFrom);
-		accountTo.depositIn(transferTo, amount);
-		accountFrom.withdrawFrom(transferFrom, amount);
+		int slotTo = slotOf(transferTo);
+		int slotFrom = slotOf(transferFrom);
+		accounts.deposit(slotTo, amount);
+		accounts.withdraw(slotFrom, amount);
 
 	}
 
+	// Deposits and withdrawals on a lock-free account may come from many threads
+	// at once, as long as nothing else runs on the bank meanwhile, including
+	// reading a savings account's withdrawal status; ConcurrentBank lifts that
+	// restriction. The mode is not kept in snapshots.
+	void makeLockFree(String id) {
+		accounts.makeLockFree(resolve(id));
+	}
+
 	public void depositIn(String id, double amount) {
-		Account account = (Account) bank.get(id);
-		account.depositIn(id, amount);
+		accounts.deposit(slotOf(id), amount);
 
 	}
 
 	public void withdrawFrom(String id, double amount) {
-		Account account = (Account) bank.get(id);
-		account.withdrawFrom(id, amount);
+		accounts.withdraw(slotOf(id), amount);
+	}
+
+	// Same result as calling depositIn, withdrawFrom and transfer for each command
+	// in batch order. Every id is looked up before anything is applied, so a batch
+	// naming an unknown account changes nothing. Here that is all it buys; the
+	// saving is in ConcurrentBank, which locks once per batch.
+	public void applyBatch(MutationBatch batch) {
+		int[] batchSlots = new int[batch.size() * 2];
+		resolve(batch, batchSlots);
+		apply(batch, batchSlots);
+	}
+
+	// Slots of each command's account and, for a transfer, its target, two per
+	// command. An id is looked up again each time it appears, not once per
+	// account: the lookup is one IdIndex probe, and remembering ids already seen
+	// in an index local to the batch costs a probe and an insert to save one.
+	void resolve(MutationBatch batch, int[] batchSlots) {
+		for (int i = 0; i < batch.size(); i++) {
+			batchSlots[2 * i] = resolve(batch.id(i));
+			if (batch.kind(i) == MutationBatch.TRANSFER) {
+				batchSlots[2 * i + 1] = resolve(batch.targetId(i));
+			}
+		}
+	}
+
+	private int resolve(String id) {
+		int slot = slotOf(id);
+		if (slot == IdIndex.NONE) {
+			throw new IllegalArgumentException("No account " + id);
+		}
+		return slot;
+	}
+
+	void apply(MutationBatch batch, int[] batchSlots) {
+		for (int i = 0; i < batch.size(); i++) {
+			int slot = batchSlots[2 * i];
+			double amount = batch.amount(i);
+			if (batch.kind(i) == MutationBatch.DEPOSIT) {
+				accounts.deposit(slot, amount);
+			} else if (batch.kind(i) == MutationBatch.WITHDRAW) {
+				accounts.withdraw(slot, amount);
+			} else {
+				if (amount > accounts.balance(slot)) {
+					amount = accounts.balance(slot);
+				}
+				accounts.deposit(batchSlots[2 * i + 1], amount);
+				accounts.withdraw(slot, amount);
+			}
+		}
 	}
 
 	public int size() {
-		return bank.size();
+		return slots.size() + otherSlots.size();
 	}
 
 	public void remove(String id) {
-		bank.remove(id);
-		accountNumber.remove(id);
+		int slot = removeSlot(id);
+		if (slot != IdIndex.NONE) {
+			accounts.release(slot);
+		}
 
 	}
 
 	public boolean containsKey(String id) {
-		if (bank.containsKey(id)) {
+		if (slotOf(id) != IdIndex.NONE) {
 			return true;
 
 		}
@@ -76,37 +239,33 @@ public class Bank {
 	}
 
 	void passTime(int time) {
-		List<String> accountsRemoved = new ArrayList<>();
-		for (String id : bank.keySet()) {
-			Account account = ((Account) bank.get(id));
-			if (account.getAmount(id) == 0) {
-				accountsRemoved.add(id);
-				continue;
-			}
-			if (account.getAmount(id) < 100) {
-				account.withdrawFrom(id, 25);
-			}
-
-			account.passTimeCalc(id, time);
+		passTime(time, accounts.size() >= PARALLEL_PASS_TIME && ForkJoinPool.getCommonPoolParallelism() > 1);
+	}
 
+	void passTime(int time, boolean parallel) {
+		ArrayList<String> accountsRemoved = new ArrayList<>();
+		if (parallel) {
+			accounts.passTimeParallel(time, accountsRemoved::add);
+		} else {
+			accounts.passTime(time, accountsRemoved::add);
 		}
-
 		for (String id : accountsRemoved) {
-			bank.remove(id);
-			accountNumber.remove(id);
+			removeSlot(id);
 		}
 
 	}
 
 	public void transfer(String transferFrom, String transferTo, double amount) {
+		int slotFrom = slotOf(transferFrom);
+		int slotTo = slotOf(transferTo);
 		double final_amount = amount;
-		if (final_amount > ((Account) bank.get(transferFrom)).getAmount(transferFrom))
+		if (final_amount > accounts.balance(slotFrom))
 
 		{
-			final_amount = ((Account) bank.get(transferFrom)).getAmount(transferFrom);
+			final_amount = accounts.balance(slotFrom);
 		}
 
-		((Account) bank.get(transferTo)).depositIn(transferTo, final_amount);
-		((Account) bank.get(transferFrom)).withdrawFrom(transferFrom, final_amount);
+		accounts.deposit(slotTo, final_amount);
+		accounts.withdraw(slotFrom, final_amount);
 	}
 }
@@ -0,0 +1,287 @@
+package banking;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+// Keeps one binary snapshot of the bank and its command history in a file,
+// taken every interval commands, with the journal position it was taken at. A
+// snapshot is
+//
+//   int magic | int version | long journal position
+//   int accounts, then in creation order for each:
+//     id | byte type | double balance | double apr | int age | boolean withdrawn
+//   int histories, then for each: id | int lines | lines
+//   int invalid commands | commands
+//   int CRC32C of everything before it
+//
+// with every string written as an int length and UTF-8 bytes. Between two
+// commands, on the thread running them, only the account columns are written
+// out, along with a prefix of each history and a copy of the invalid command
+// references; that pause grows with the number of accounts, not with the
+// history. Turning the histories back into text, writing the image out and
+// forcing it to disk happen on a background thread. It goes to a file beside the
+// target and is moved over it, so the target always holds one whole snapshot. A
+// snapshot falling due while the last one is still being written is skipped.
+public class BankSnapshots implements Closeable {
+	static final int MAGIC = 0x424E4B53;
+	static final int VERSION = 1;
+	public static final int DEFAULT_INTERVAL = 100_000;
+
+	private final Path file;
+	private final int interval;
+	private final ExecutorService writer;
+	private Future<?> pending;
+	private int sinceLast;
+
+	public BankSnapshots(Path file) {
+		this(file, DEFAULT_INTERVAL);
+	}
+
+	public BankSnapshots(Path file, int interval) {
+		if (interval < 1) {
+			throw new IllegalArgumentException("Interval must be positive: " + interval);
+		}
+		this.file = file;
+		this.interval = interval;
+		writer = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "bank-snapshots");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	void processed(CommandStorage storage, CommandJournal journal) {
+		sinceLast++;
+		if (sinceLast < interval || !finished()) {
+			return;
+		}
+		sinceLast = 0;
+		take(storage, journal);
+	}
+
+	// The journal is synced first so it is never shorter than the position the
+	// snapshot names.
+	void take(CommandStorage storage, CommandJournal journal) {
+		if (pending != null) {
+			await();
+		}
+		Capture capture;
+		try {
+			journal.sync();
+			capture = capture(storage, journal.position());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		pending = writer.submit(() -> {
+			write(file, capture.image());
+			return null;
+		});
+	}
+
+	// Whether the last write is done, rethrowing its failure if it failed.
+	private boolean finished() {
+		if (pending == null) {
+			return true;
+		}
+		if (!pending.isDone()) {
+			return false;
+		}
+		await();
+		return true;
+	}
+
+	private void await() {
+		try {
+			pending.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while writing a snapshot", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw new UncheckedIOException((IOException) e.getCause());
+			}
+			throw new IllegalStateException("Snapshot write failed", e.getCause());
+		} finally {
+			pending = null;
+		}
+	}
+
+	static Capture capture(CommandStorage storage, long journalPosition) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(journalPosition);
+		AccountStore accounts = storage.bank.getAccounts();
+		out.writeInt(accounts.size());
+		for (int slot = accounts.first(); slot != AccountStore.NONE; slot = accounts.next(slot)) {
+			writeString(out, accounts.id(slot));
+			out.writeByte(accounts.type(slot).ordinal());
+			out.writeDouble(accounts.balance(slot));
+			out.writeDouble(accounts.apr(slot));
+			out.writeInt(accounts.age(slot));
+			out.writeBoolean(accounts.withdrawn(slot));
+		}
+		out.flush();
+		String[] ids = new String[storage.validCommandList.size()];
+		CommandHistory[] histories = new CommandHistory[ids.length];
+		int i = 0;
+		for (Map.Entry<String, CommandHistory> entry : storage.validCommandList.entrySet()) {
+			ids[i] = entry.getKey();
+			histories[i++] = entry.getValue().prefix();
+		}
+		return new Capture(bytes.toByteArray(), ids, histories, storage.invalidCommandList.toArray(new String[0]));
+	}
+
+	// A snapshot as taken between two commands, which image finishes on any
+	// thread.
+	static class Capture {
+		private final byte[] accounts;
+		private final String[] ids;
+		private final CommandHistory[] histories;
+		private final String[] invalid;
+
+		private Capture(byte[] accounts, String[] ids, CommandHistory[] histories, String[] invalid) {
+			this.accounts = accounts;
+			this.ids = ids;
+			this.histories = histories;
+			this.invalid = invalid;
+		}
+
+		byte[] image() throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(accounts.length + (1 << 16));
+			CRC32C checksum = new CRC32C();
+			DataOutputStream out = new DataOutputStream(new CheckedOutputStream(bytes, checksum));
+			out.write(accounts);
+			out.writeInt(ids.length);
+			for (int i = 0; i < ids.length; i++) {
+				writeString(out, ids[i]);
+				out.writeInt(histories[i].size());
+				for (int j = 0; j < histories[i].size(); j++) {
+					writeString(out, histories[i].get(ids[i], j));
+				}
+			}
+			out.writeInt(invalid.length);
+			for (String line : invalid) {
+				writeString(out, line);
+			}
+			out.writeInt((int) checksum.getValue());
+			out.flush();
+			return bytes.toByteArray();
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(utf8.length);
+		out.write(utf8);
+	}
+
+	static void write(Path file, byte[] image) throws IOException {
+		Path next = file.resolveSibling(file.getFileName() + ".next");
+		try (FileChannel channel = FileChannel.open(next, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.wrap(image);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// Loads the snapshot into an empty bank and history and returns the journal
+	// position to replay from. With no file, or one that is not a whole snapshot,
+	// nothing is loaded and the whole journal has to be replayed.
+	static long restore(Path file, CommandStorage storage) throws IOException {
+		byte[] image;
+		try {
+			image = Files.readAllBytes(file);
+		} catch (NoSuchFileException e) {
+			return 0;
+		}
+		if (!whole(image)) {
+			return 0;
+		}
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(image, 0, image.length - Integer.BYTES));
+		in.readInt();
+		in.readInt();
+		long journalPosition = in.readLong();
+		int accounts = in.readInt();
+		for (int i = 0; i < accounts; i++) {
+			String id = readString(in);
+			AccountType type = AccountType.of(in.readByte());
+			double balance = in.readDouble();
+			double apr = in.readDouble();
+			int age = in.readInt();
+			boolean withdrawn = in.readBoolean();
+			storage.bank.restore(id, type, balance, apr, age, withdrawn);
+		}
+		int histories = in.readInt();
+		for (int i = 0; i < histories; i++) {
+			String id = readString(in);
+			int lines = in.readInt();
+			for (int j = 0; j < lines; j++) {
+				storage.storeValidCommand(id, readString(in));
+			}
+		}
+		int invalid = in.readInt();
+		for (int i = 0; i < invalid; i++) {
+			storage.addInvalidCommand(readString(in));
+		}
+		return journalPosition;
+	}
+
+	private static boolean whole(byte[] image) {
+		if (image.length < 2 * Integer.BYTES + Long.BYTES + Integer.BYTES) {
+			return false;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(image);
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+			return false;
+		}
+		CRC32C checksum = new CRC32C();
+		checksum.update(image, 0, image.length - Integer.BYTES);
+		return (int) checksum.getValue() == buffer.getInt(image.length - Integer.BYTES);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] utf8 = new byte[in.readInt()];
+		in.readFully(utf8);
+		return new String(utf8, StandardCharsets.UTF_8);
+	}
+
+	// Waits for the snapshot being written, if there is one.
+	@Override
+	public void close() throws IOException {
+		try {
+			if (pending != null) {
+				await();
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			writer.shutdown();
+		}
+	}
+}
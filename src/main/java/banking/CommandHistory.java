@@ -0,0 +1,306 @@
+package banking;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// One account's valid commands, kept as two longs each instead of a String and
+// turned back into the exact original text only when they are read. The owner's
+// id is the key the history is stored under, so only a transfer's other id is
+// kept. The first long packs
+//
+//   bits 0-1   kind: deposit, withdraw, transfer or raw text
+//   bits 2-9   which letters of the keyword are upper case
+//   bits 10-14 number of digits in the amount
+//   bits 15-19 where the decimal point goes among them, or NO_POINT
+//   bits 20-46 a transfer's other id, eight digits as a number
+//   bit 47     whether the owner is the one a transfer is from
+//
+// and the second holds the amount's digits as a number, or, for raw text, its
+// index in the raw list. Only a line that is exactly the keyword, the ids and
+// an amount of at most MAX_DIGITS digits and one point, separated by single
+// spaces, is packed; anything else is kept as raw text.
+public class CommandHistory {
+	static final int MAX_DIGITS = 18;
+	private static final int DEPOSIT = 0;
+	private static final int WITHDRAW = 1;
+	private static final int TRANSFER = 2;
+	private static final int RAW = 3;
+	private static final int NO_POINT = 31;
+	private static final int ID_DIGITS = 8;
+	private static final String[] KEYWORDS = { "deposit", "withdraw", "transfer" };
+	// Longest keyword, other id, MAX_DIGITS digits, a point and three spaces.
+	private static final int PACKED_EXTRA = 8 + ID_DIGITS + MAX_DIGITS + 4;
+
+	private long[] records = new long[4];
+	private int size;
+	private String[] raw;
+	private int rawSize;
+	private final boolean frozen;
+
+	CommandHistory() {
+		frozen = false;
+	}
+
+	private CommandHistory(CommandHistory history) {
+		records = history.records;
+		size = history.size;
+		raw = history.raw;
+		rawSize = history.rawSize;
+		frozen = true;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	// How many of the lines are kept as text.
+	int rawLines() {
+		return rawSize;
+	}
+
+	// The lines this history holds now, readable on another thread while this one
+	// keeps growing. It shares the arrays, which is safe because a line is never
+	// changed once added and growing copies them into new ones; nothing can be
+	// added to it.
+	CommandHistory prefix() {
+		return new CommandHistory(this);
+	}
+
+	void add(String owner, CharSequence line) {
+		if (frozen) {
+			throw new IllegalStateException("History prefix cannot be added to");
+		}
+		if (size * 2 == records.length) {
+			records = Arrays.copyOf(records, records.length * 2);
+		}
+		long header = pack(owner, line);
+		if ((header & 3) == RAW) {
+			if (raw == null) {
+				raw = new String[4];
+			} else if (rawSize == raw.length) {
+				raw = Arrays.copyOf(raw, raw.length * 2);
+			}
+			records[size * 2] = RAW;
+			records[size * 2 + 1] = rawSize;
+			raw[rawSize++] = line.toString();
+		} else {
+			records[size * 2] = header;
+			records[size * 2 + 1] = digits(line, line.length() - amountLength(header));
+		}
+		size++;
+	}
+
+	// The header for line, or RAW if it cannot be rebuilt from one.
+	private static long pack(String owner, CharSequence line) {
+		int kind = kind(line);
+		if (kind == RAW) {
+			return RAW;
+		}
+		String keyword = KEYWORDS[kind];
+		long header = kind;
+		for (int i = 0; i < keyword.length(); i++) {
+			char c = line.charAt(i);
+			if (c == Character.toUpperCase(keyword.charAt(i))) {
+				header |= 1L << (2 + i);
+			} else if (c != keyword.charAt(i)) {
+				return RAW;
+			}
+		}
+		int position = keyword.length();
+		if (!space(line, position)) {
+			return RAW;
+		}
+		position++;
+		if (kind == TRANSFER) {
+			int end = position + ID_DIGITS;
+			if (owner.length() != ID_DIGITS || !space(line, end)) {
+				return RAW;
+			}
+			if (matches(line, position, owner) && digitsOnly(line, end + 1, end + 1 + ID_DIGITS)) {
+				header |= digits(line, end + 1, end + 1 + ID_DIGITS) << 20 | 1L << 47;
+			} else if (digitsOnly(line, position, end) && matches(line, end + 1, owner)) {
+				header |= digits(line, position, end) << 20;
+			} else {
+				return RAW;
+			}
+			position = end + 1 + ID_DIGITS;
+		} else {
+			if (!matches(line, position, owner)) {
+				return RAW;
+			}
+			position += owner.length();
+		}
+		if (!space(line, position)) {
+			return RAW;
+		}
+		position++;
+		int digitCount = 0;
+		int point = NO_POINT;
+		for (int i = position; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (c == '.' && point == NO_POINT) {
+				point = digitCount;
+			} else if (c >= '0' && c <= '9') {
+				digitCount++;
+			} else {
+				return RAW;
+			}
+		}
+		if (digitCount > MAX_DIGITS) {
+			return RAW;
+		}
+		return header | (long) digitCount << 10 | (long) point << 15;
+	}
+
+	private static int kind(CharSequence line) {
+		if (line.length() > 8 && line.charAt(7) == ' ') {
+			return DEPOSIT;
+		} else if (line.length() > 9 && line.charAt(8) == ' ') {
+			char first = line.charAt(0);
+			return first == 't' || first == 'T' ? TRANSFER : WITHDRAW;
+		}
+		return RAW;
+	}
+
+	private static boolean space(CharSequence line, int index) {
+		return index < line.length() && line.charAt(index) == ' ';
+	}
+
+	private static boolean matches(CharSequence line, int from, String id) {
+		if (from + id.length() > line.length()) {
+			return false;
+		}
+		for (int i = 0; i < id.length(); i++) {
+			if (line.charAt(from + i) != id.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean digitsOnly(CharSequence line, int from, int to) {
+		if (to > line.length()) {
+			return false;
+		}
+		for (int i = from; i < to; i++) {
+			char c = line.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long digits(CharSequence line, int from, int to) {
+		long value = 0;
+		for (int i = from; i < to; i++) {
+			char c = line.charAt(i);
+			if (c != '.') {
+				value = value * 10 + (c - '0');
+			}
+		}
+		return value;
+	}
+
+	private static long digits(CharSequence line, int from) {
+		return digits(line, from, line.length());
+	}
+
+	private static int amountLength(long header) {
+		int digitCount = (int) (header >>> 10) & 31;
+		int point = (int) (header >>> 15) & 31;
+		return point == NO_POINT ? digitCount : digitCount + 1;
+	}
+
+	public String get(String owner, int index) {
+		char[] line = new char[owner.length() + PACKED_EXTRA];
+		int length = render(owner, index, line);
+		if (length < 0) {
+			return raw[(int) records[index * 2 + 1]];
+		}
+		return new String(line, 0, length);
+	}
+
+	void forEach(String owner, Consumer<String> sink) {
+		char[] line = new char[owner.length() + PACKED_EXTRA];
+		for (int i = 0; i < size; i++) {
+			int length = render(owner, i, line);
+			if (length < 0) {
+				sink.accept(raw[(int) records[i * 2 + 1]]);
+			} else {
+				sink.accept(new String(line, 0, length));
+			}
+		}
+	}
+
+	// Same lines as forEach, with no String made for a packed one.
+	void write(String owner, LineWriter out) throws IOException {
+		char[] line = out.scratch(owner.length() + PACKED_EXTRA);
+		for (int i = 0; i < size; i++) {
+			int length = render(owner, i, line);
+			if (length < 0) {
+				out.line(raw[(int) records[i * 2 + 1]]);
+			} else {
+				out.line(line, 0, length);
+			}
+		}
+	}
+
+	// Writes a packed line into line, which has room for owner.length() +
+	// PACKED_EXTRA characters, and returns its length, or -1 for a raw one.
+	private int render(String owner, int index, char[] line) {
+		long header = records[index * 2];
+		long value = records[index * 2 + 1];
+		int kind = (int) header & 3;
+		if (kind == RAW) {
+			return -1;
+		}
+		String keyword = KEYWORDS[kind];
+		int length = 0;
+		for (int i = 0; i < keyword.length(); i++) {
+			char c = keyword.charAt(i);
+			line[length++] = (header & 1L << (2 + i)) != 0 ? Character.toUpperCase(c) : c;
+		}
+		line[length++] = ' ';
+		if (kind == TRANSFER) {
+			long other = header >>> 20 & ((1L << 27) - 1);
+			if ((header & 1L << 47) != 0) {
+				length = putOwner(line, length, owner);
+				line[length++] = ' ';
+				length = putDigits(line, length, other, ID_DIGITS, NO_POINT);
+			} else {
+				length = putDigits(line, length, other, ID_DIGITS, NO_POINT);
+				line[length++] = ' ';
+				length = putOwner(line, length, owner);
+			}
+		} else {
+			length = putOwner(line, length, owner);
+		}
+		line[length++] = ' ';
+		return putDigits(line, length, value, (int) (header >>> 10) & 31, (int) (header >>> 15) & 31);
+	}
+
+	private static int putOwner(char[] line, int at, String owner) {
+		owner.getChars(0, owner.length(), line, at);
+		return at + owner.length();
+	}
+
+	// value as exactly digitCount digits, leading zeros included, with a point
+	// before the digit at point.
+	private static int putDigits(char[] line, int at, long value, int digitCount, int point) {
+		int end = point == NO_POINT ? at + digitCount : at + digitCount + 1;
+		int position = end;
+		for (int i = digitCount - 1; i >= 0; i--) {
+			if (i + 1 == point) {
+				line[--position] = '.';
+			}
+			line[--position] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+		if (point == 0) {
+			line[--position] = '.';
+		}
+		return end;
+	}
+}
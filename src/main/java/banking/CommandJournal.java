@@ -0,0 +1,293 @@
+package banking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+// Append-only journal of every command MasterControl has judged, written before
+// a valid command is applied. A record is
+//
+//   int length | byte kind | length bytes of UTF-8 command | int CRC32C
+//
+// where the checksum covers the kind and the command. Records are buffered and
+// forced to disk together: once groupSize records are waiting, or once the
+// oldest of them has waited groupWindow, the next append syncs them all. sync
+// and close force whatever is waiting. So that records are not left waiting
+// when no more appends come, a background thread checks every groupWindow and
+// syncs a group that is due, which bounds how long a record waits to about
+// twice the window. A failure there is thrown by the next append or sync.
+//
+// A record cut short by a crash fails its checksum; opening the journal again
+// cuts the file back to the last whole record, and droppedBytes says how much
+// went.
+public class CommandJournal implements Closeable {
+	static final byte VALID = 1;
+	static final byte INVALID = 2;
+	public static final int DEFAULT_GROUP_SIZE = 1000;
+	public static final long DEFAULT_GROUP_WINDOW_MILLIS = 10;
+	private static final int HEADER_BYTES = Integer.BYTES + 1;
+	private static final int TRAILER_BYTES = Integer.BYTES;
+	private static final int BUFFER_BYTES = 1 << 16;
+	private static final long MIN_FLUSH_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final FileChannel channel;
+	private final int groupSize;
+	private final long groupWindowNanos;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+	private final CRC32C checksum = new CRC32C();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final ScheduledExecutorService flusher;
+	private final long droppedBytes;
+	private byte[] encoded = new byte[256];
+	private int pending;
+	private long oldestPending;
+	private long syncs;
+	private IOException flushFailure;
+
+	public CommandJournal(Path file) throws IOException {
+		this(file, DEFAULT_GROUP_SIZE, DEFAULT_GROUP_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	public CommandJournal(Path file, int groupSize, long groupWindow, TimeUnit unit) throws IOException {
+		if (groupSize < 1) {
+			throw new IllegalArgumentException("Group size must be positive: " + groupSize);
+		}
+		this.groupSize = groupSize;
+		this.groupWindowNanos = unit.toNanos(groupWindow);
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		long end = replay(channel, 0, null);
+		droppedBytes = channel.size() - end;
+		channel.truncate(end);
+		channel.position(end);
+		if (groupSize > 1 && groupWindowNanos > 0) {
+			long period = Math.max(groupWindowNanos, MIN_FLUSH_PERIOD_NANOS);
+			flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+				Thread thread = new Thread(task, "command-journal");
+				thread.setDaemon(true);
+				return thread;
+			});
+			flusher.scheduleWithFixedDelay(this::flushIfDue, period, period, TimeUnit.NANOSECONDS);
+		} else {
+			flusher = null;
+		}
+	}
+
+	public interface RecordHandler {
+		void record(byte kind, String command);
+	}
+
+	// Reads every whole record from the start of the file, stopping at the first
+	// one that is cut short or fails its checksum.
+	public static void replay(Path file, RecordHandler handler) throws IOException {
+		replay(file, 0, handler);
+	}
+
+	// The same, starting at a position taken from a journal earlier on.
+	public static void replay(Path file, long from, RecordHandler handler) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			replay(channel, from, handler);
+		}
+	}
+
+	private static long replay(FileChannel channel, long from, RecordHandler handler) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+		CRC32C checksum = new CRC32C();
+		long position = from;
+		long size = channel.size();
+		while (position + HEADER_BYTES + TRAILER_BYTES <= size) {
+			header.clear();
+			readFully(channel, header, position);
+			int length = header.getInt(0);
+			byte kind = header.get(Integer.BYTES);
+			if (length < 0 || position + HEADER_BYTES + length + TRAILER_BYTES > size) {
+				break;
+			}
+			ByteBuffer body = ByteBuffer.allocate(length);
+			readFully(channel, body, position + HEADER_BYTES);
+			trailer.clear();
+			readFully(channel, trailer, position + HEADER_BYTES + length);
+			checksum.reset();
+			checksum.update(kind);
+			checksum.update(body.array(), 0, length);
+			if ((int) checksum.getValue() != trailer.getInt(0)) {
+				break;
+			}
+			if (handler != null) {
+				handler.record(kind, new String(body.array(), 0, length, StandardCharsets.UTF_8));
+			}
+			position += HEADER_BYTES + length + TRAILER_BYTES;
+		}
+		return position;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+		while (target.hasRemaining()) {
+			if (channel.read(target, position + target.position()) < 0) {
+				throw new IOException("Unexpected end of journal");
+			}
+		}
+	}
+
+	void append(byte kind, CharSequence command) {
+		lock.lock();
+		try {
+			throwFlushFailure();
+			int length = encode(command);
+			int recordBytes = HEADER_BYTES + length + TRAILER_BYTES;
+			checksum.reset();
+			checksum.update(kind);
+			checksum.update(encoded, 0, length);
+			if (buffer.remaining() < recordBytes) {
+				write();
+			}
+			if (recordBytes > buffer.capacity()) {
+				ByteBuffer record = ByteBuffer.allocate(recordBytes);
+				put(record, kind, length);
+				record.flip();
+				while (record.hasRemaining()) {
+					channel.write(record);
+				}
+			} else {
+				put(buffer, kind, length);
+			}
+			if (pending == 0) {
+				oldestPending = System.nanoTime();
+			}
+			pending++;
+			if (pending >= groupSize || System.nanoTime() - oldestPending >= groupWindowNanos) {
+				force();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Runs on the flusher thread.
+	private void flushIfDue() {
+		lock.lock();
+		try {
+			if (flushFailure == null && pending > 0 && System.nanoTime() - oldestPending >= groupWindowNanos) {
+				force();
+			}
+		} catch (IOException e) {
+			flushFailure = e;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void throwFlushFailure() throws IOException {
+		if (flushFailure != null) {
+			IOException failure = flushFailure;
+			flushFailure = null;
+			throw failure;
+		}
+	}
+
+	private void put(ByteBuffer target, byte kind, int length) {
+		target.putInt(length);
+		target.put(kind);
+		target.put(encoded, 0, length);
+		target.putInt((int) checksum.getValue());
+	}
+
+	// ASCII, which is what commands almost always are, is copied byte for byte.
+	private int encode(CharSequence command) {
+		int length = command.length();
+		if (encoded.length < length) {
+			encoded = new byte[Math.max(length, encoded.length * 2)];
+		}
+		for (int i = 0; i < length; i++) {
+			char c = command.charAt(i);
+			if (c >= 0x80) {
+				byte[] utf8 = command.toString().getBytes(StandardCharsets.UTF_8);
+				if (encoded.length < utf8.length) {
+					encoded = new byte[utf8.length];
+				}
+				System.arraycopy(utf8, 0, encoded, 0, utf8.length);
+				return utf8.length;
+			}
+			encoded[i] = (byte) c;
+		}
+		return length;
+	}
+
+	private void write() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	public void sync() throws IOException {
+		lock.lock();
+		try {
+			throwFlushFailure();
+			force();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void force() throws IOException {
+		write();
+		if (pending > 0) {
+			channel.force(false);
+			syncs++;
+			pending = 0;
+		}
+	}
+
+	// Where the next record will start; replaying from here skips every record
+	// appended so far.
+	long position() throws IOException {
+		lock.lock();
+		try {
+			return channel.position() + buffer.position();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	long syncs() {
+		lock.lock();
+		try {
+			return syncs;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Bytes after the last whole record that opening the journal cut off.
+	public long droppedBytes() {
+		return droppedBytes;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (flusher != null) {
+			flusher.shutdown();
+		}
+		lock.lock();
+		try {
+			sync();
+		} finally {
+			channel.close();
+			lock.unlock();
+		}
+	}
+}
@@ -1,32 +1,36 @@
 package banking;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import banking.ParsedCommand.Operation;
+
 public class CommandProcessor {
 
 	Bank bank;
+	private final ParsedCommand command = new ParsedCommand();
+	private final Map<Operation, Consumer<ParsedCommand>> processors = new EnumMap<>(Operation.class);
 
 	public CommandProcessor(Bank bank) {
 		this.bank = bank;
+		processors.put(Operation.CREATE, new CreateCommandProcessor(bank)::create);
+		processors.put(Operation.DEPOSIT, new DepositCommandProcessor(bank)::deposit);
+		processors.put(Operation.WITHDRAW, new WithdrawCommandProcessor(bank)::withdraw);
+		processors.put(Operation.TRANSFER, new TransferCommandProcessor(bank)::transfer);
+		processors.put(Operation.PASS, new PassTimeProcessor(bank)::pass);
 
 	}
 
 	public void processCommand(String command) {
-		String arr[] = command.split(" ");
-		if (arr[0].equalsIgnoreCase("create")) {
-			CreateCommandProcessor commandProcessor = new CreateCommandProcessor(bank);
-			commandProcessor.create(command);
-		} else if (arr[0].equalsIgnoreCase("deposit")) {
-			DepositCommandProcessor commandProcessor = new DepositCommandProcessor(bank);
-			commandProcessor.deposit(command);
-		} else if (arr[0].equalsIgnoreCase("withdraw")) {
-			WithdrawCommandProcessor commandProcessor = new WithdrawCommandProcessor(bank);
-			commandProcessor.withdraw(command);
-		} else if (arr[0].equalsIgnoreCase("transfer")) {
-			TransferCommandProcessor commandProcessor = new TransferCommandProcessor(bank);
-			commandProcessor.transfer(command);
-		} else if (arr[0].equalsIgnoreCase("pass")) {
-			PassTimeProcessor commandProcessor = new PassTimeProcessor(bank);
-			commandProcessor.pass(command);
+		processCommand(this.command.reset(command));
+	}
+
+	void processCommand(ParsedCommand command) {
+		if (command.operation() == null) {
+			return;
 		}
+		processors.get(command.operation()).accept(command);
 
 	}
 }
@@ -0,0 +1,268 @@
+package banking;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import banking.ParsedCommand.Operation;
+
+// Serves the command language over TCP, one session per connection, all sessions
+// sharing one ConcurrentBank. Every command line gets exactly one reply line:
+// "invalid", or "valid" followed by the status of each account the command
+// touched, separated by "; ".
+//
+// A command is validated and applied while holding the locks of the ids it
+// names, so no other session can change those accounts in between; a pass holds
+// the write side of a lock every other command reads.
+public class CommandServer implements Closeable {
+	private static final int ID_LOCK_BITS = 8;
+	private static final int ID_LOCKS = 1 << ID_LOCK_BITS;
+	private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1000;
+
+	private final ConcurrentBank bank;
+	private final ServerSocket serverSocket;
+	private final ExecutorService sessions = newSessionExecutor();
+	private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+	private final ReentrantReadWriteLock passLock = new ReentrantReadWriteLock();
+	private final ReentrantLock[] idLocks = new ReentrantLock[ID_LOCKS];
+
+	public CommandServer(int port) throws IOException {
+		this(new ConcurrentBank(), port);
+	}
+
+	CommandServer(ConcurrentBank bank, int port) throws IOException {
+		this(bank, new ServerSocket(port, 1024, InetAddress.getLoopbackAddress()));
+	}
+
+	CommandServer(ConcurrentBank bank, ServerSocket serverSocket) {
+		this.bank = bank;
+		this.serverSocket = serverSocket;
+		for (int i = 0; i < ID_LOCKS; i++) {
+			idLocks[i] = new ReentrantLock();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 7878;
+		try (CommandServer server = new CommandServer(port)) {
+			server.acceptUntilClosed();
+		}
+	}
+
+	// Virtual threads when the runtime has them (JDK 21+), otherwise a cached pool
+	// of platform threads; looked up reflectively so the build still targets 17.
+	static ExecutorService newSessionExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	Bank getBank() {
+		return bank;
+	}
+
+	// Accepts connections in the background and returns at once. Session threads
+	// may be daemon threads, so a caller with nothing else keeping the JVM alive
+	// should use acceptUntilClosed instead.
+	public void start() {
+		sessions.execute(this::acceptUntilClosed);
+	}
+
+	// Accepts connections on the calling thread until the server is closed. A
+	// failing accept on an open socket, such as running out of file descriptors,
+	// tends to fail again at once, so each failure in a row waits twice as long
+	// as the one before, up to MAX_ACCEPT_BACKOFF_MILLIS.
+	public void acceptUntilClosed() {
+		long backoff = 0;
+		while (!serverSocket.isClosed()) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				if (serverSocket.isClosed()) {
+					return;
+				}
+				backoff = backoff == 0 ? 1 : Math.min(backoff * 2, MAX_ACCEPT_BACKOFF_MILLIS);
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				continue;
+			}
+			backoff = 0;
+			connections.add(socket);
+			if (serverSocket.isClosed()) {
+				closeQuietly(socket);
+				return;
+			}
+			sessions.execute(() -> serve(socket));
+		}
+	}
+
+	private void serve(Socket socket) {
+		Session session = new Session();
+		try (Socket connection = socket;
+				BufferedReader reader = new BufferedReader(
+						new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+				BufferedWriter writer = new BufferedWriter(
+						new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				writer.write(session.handle(line));
+				writer.newLine();
+				if (!reader.ready()) {
+					writer.flush();
+				}
+			}
+		} catch (IOException e) {
+			return;
+		} finally {
+			connections.remove(socket);
+		}
+	}
+
+	// Closing the connections is what ends sessions blocked reading a line, which
+	// a platform thread does not give up on being interrupted. The listening
+	// socket is closed first, so a connection accepted meanwhile is either in
+	// connections by now or closed by acceptUntilClosed.
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+		for (Socket socket : connections) {
+			closeQuietly(socket);
+		}
+		sessions.shutdownNow();
+		try {
+			sessions.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void closeQuietly(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			return;
+		}
+	}
+
+	private int idLock(CommandTokenizer tokens, int index) {
+		int hash = 0;
+		for (int i = 0; i < tokens.length(index); i++) {
+			hash = 31 * hash + tokens.charAt(index, i);
+		}
+		return (hash * 0x9E3779B9) >>> (32 - ID_LOCK_BITS);
+	}
+
+	class Session {
+		private final Validator validator = new Validator(bank);
+		private final CommandProcessor processor = new CommandProcessor(bank);
+		private final ParsedCommand command = new ParsedCommand();
+
+		String handle(String line) {
+			command.reset(line);
+			CommandTokenizer tokens = command.tokens();
+			Operation operation = command.operation();
+			if (operation == Operation.PASS && tokens.count() == 2) {
+				return runExclusively();
+			}
+			int first = -1;
+			int second = -1;
+			if (operation == Operation.CREATE && tokens.count() >= 3) {
+				first = idLock(tokens, 2);
+			} else if (operation == Operation.TRANSFER && tokens.count() >= 3) {
+				first = Math.min(idLock(tokens, 1), idLock(tokens, 2));
+				second = Math.max(idLock(tokens, 1), idLock(tokens, 2));
+			} else if (operation != null && operation != Operation.PASS && tokens.count() >= 2) {
+				first = idLock(tokens, 1);
+			}
+			Lock shared = passLock.readLock();
+			shared.lock();
+			try {
+				lock(first);
+				if (second != first) {
+					lock(second);
+				}
+				try {
+					return run();
+				} finally {
+					if (second != first) {
+						unlock(second);
+					}
+					unlock(first);
+				}
+			} finally {
+				shared.unlock();
+			}
+		}
+
+		private String runExclusively() {
+			Lock exclusive = passLock.writeLock();
+			exclusive.lock();
+			try {
+				return run();
+			} finally {
+				exclusive.unlock();
+			}
+		}
+
+		private void lock(int index) {
+			if (index >= 0) {
+				idLocks[index].lock();
+			}
+		}
+
+		private void unlock(int index) {
+			if (index >= 0) {
+				idLocks[index].unlock();
+			}
+		}
+
+		// Lines that would stop a batch run, such as a non-numeric amount, are
+		// answered as invalid instead of ending the session.
+		private String run() {
+			try {
+				if (!validator.validate(command)) {
+					return "invalid";
+				}
+				processor.processCommand(command);
+			} catch (RuntimeException e) {
+				return "invalid";
+			}
+			if (command.operation() == Operation.PASS) {
+				return "valid";
+			} else if (command.operation() == Operation.TRANSFER) {
+				return "valid " + status(command.id()) + "; " + status(command.targetId());
+			}
+			return "valid " + status(command.id());
+		}
+
+		private String status(String id) {
+			return CommandStorage.formatAccountStatus(bank.getType(id), id, bank.getAmount(id), bank.getAPR(id));
+		}
+	}
+}
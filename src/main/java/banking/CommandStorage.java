@@ -1,16 +1,24 @@
 package banking;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.text.DecimalFormat;
+import java.text.FieldPosition;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+
+import banking.ParsedCommand.Operation;
 
 public class CommandStorage {
 	Bank bank;
 	List<String> invalidCommandList = new ArrayList<>();
-	Map<String, List<String>> validCommandList = new HashMap<>();
+	Map<String, CommandHistory> validCommandList = new HashMap<>();
 
 	CommandStorage(Bank bank) {
 		this.bank = bank;
@@ -18,49 +26,114 @@ public class CommandStorage {
 	}
 
 	public void storeValidCommand(String s) {
-		String arr[] = s.split(" ");
-
-		if (arr[0].equalsIgnoreCase("create") || arr[0].equalsIgnoreCase("withdraw")
-				|| arr[0].equalsIgnoreCase("deposit")) {
-			insertIntoMap(validCommandList, arr[1], s);
-		} else if (arr[0].equalsIgnoreCase("transfer")) {
-			insertIntoMap(validCommandList, arr[1], s);
-			insertIntoMap(validCommandList, arr[2], s);
+		storeValidCommand(new ParsedCommand(s));
+	}
+
+	void storeValidCommand(ParsedCommand command) {
+		if (command.operation() == Operation.WITHDRAW || command.operation() == Operation.DEPOSIT) {
+			history(command.id()).add(command.id(), command.tokens().line());
+		} else if (command.operation() == Operation.TRANSFER) {
+			CharSequence s = command.tokens().line();
+			history(command.id()).add(command.id(), s);
+			history(command.targetId()).add(command.targetId(), s);
 		}
 
 	}
 
-	private void insertIntoMap(Map<String, List<String>> validCommandList, String id, String command) {
+	void storeValidCommand(String id, String command) {
+		history(id).add(id, command);
+	}
 
-		if (validCommandList.get(id) != null) {
-			validCommandList.get(id).add(command);
-		} else if (validCommandList.get(id) == null) {
-			validCommandList.put(id, new ArrayList<>());
-			validCommandList.get(id).add(command);
+	private CommandHistory history(String id) {
+		CommandHistory history = validCommandList.get(id);
+		if (history == null) {
+			history = new CommandHistory();
+			validCommandList.put(id, history);
 		}
+		return history;
 	}
 
 	public List<String> output() {
 		List<String> finalOutput = new ArrayList<>();
-		for (String id : bank.getAccountNumber()) {
-			finalOutput.add(formatAccountStatus(id));
-			if (validCommandList.get(id) != null) {
-				finalOutput.addAll(validCommandList.get(id));
+		output(finalOutput::add);
+		return finalOutput;
+	}
+
+	public void output(Consumer<String> sink) {
+		AccountStore accounts = bank.getAccounts();
+		for (int slot = accounts.first(); slot != AccountStore.NONE; slot = accounts.next(slot)) {
+			output(slot, sink);
+		}
+		invalidCommandList.forEach(sink);
+	}
+
+	// The same lines as output(), in UTF-8 and each ended by a newline, encoded
+	// straight into one reused buffer: history lines and status lines are never
+	// made into Strings.
+	public void output(WritableByteChannel channel) throws IOException {
+		LineWriter out = new LineWriter(channel);
+		DecimalFormat decimalFormat = amountFormat();
+		StringBuffer number = new StringBuffer();
+		FieldPosition field = new FieldPosition(0);
+		AccountStore accounts = bank.getAccounts();
+		for (int slot = accounts.first(); slot != AccountStore.NONE; slot = accounts.next(slot)) {
+			String id = accounts.id(slot);
+			out.append(accounts.type(slot).getName()).append(' ').append(id).append(' ');
+			number.setLength(0);
+			decimalFormat.format(accounts.balance(slot), number, field).append(' ');
+			decimalFormat.format(accounts.apr(slot), number, field);
+			out.line(number);
+			CommandHistory history = validCommandList.get(id);
+			if (history != null) {
+				history.write(id, out);
 			}
 		}
-		finalOutput.addAll(invalidCommandList);
-		return finalOutput;
+		for (String command : invalidCommandList) {
+			out.line(command);
+		}
+		out.flush();
+	}
+
+	public void output(OutputStream stream) throws IOException {
+		output(Channels.newChannel(stream));
+		stream.flush();
+	}
+
+	void output(String id, Consumer<String> sink) {
+		output(bank.slotOf(id), sink);
+	}
+
+	private void output(int slot, Consumer<String> sink) {
+		sink.accept(formatAccountStatus(slot));
+		String id = bank.getAccounts().id(slot);
+		CommandHistory history = validCommandList.get(id);
+		if (history != null) {
+			history.forEach(id, sink);
+		}
 	}
 
 	String formatAccountStatus(String id) {
+		return formatAccountStatus(bank.slotOf(id));
+	}
 
+	private String formatAccountStatus(int slot) {
+		AccountStore accounts = bank.getAccounts();
+		return formatAccountStatus(accounts.type(slot), accounts.id(slot), accounts.balance(slot), accounts.apr(slot));
+	}
+
+	static String formatAccountStatus(AccountType type, String id, double balance, double apr) {
+
+		DecimalFormat decimalFormat = amountFormat();
+		String formatBalance = decimalFormat.format(balance);
+		String formatApr = decimalFormat.format(apr);
+		return type.getName() + " " + id + " " + formatBalance + " " + formatApr;
+
+	}
+
+	private static DecimalFormat amountFormat() {
 		DecimalFormat decimalFormat = new DecimalFormat("0.00");
 		decimalFormat.setRoundingMode(RoundingMode.FLOOR);
-		Account account = (Account) bank.getAccounts().get(id);
-		String formatBalance = decimalFormat.format(account.getAmount(id));
-		String formatApr = decimalFormat.format(account.getAPR(id));
-		return account.getAccountType() + " " + id + " " + formatBalance + " " + formatApr;
-
+		return decimalFormat;
 	}
 
 	public void addInvalidCommand(String s) {
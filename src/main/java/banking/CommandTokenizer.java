@@ -0,0 +1,203 @@
+package banking;
+
+import java.util.Arrays;
+
+public class CommandTokenizer {
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	private static final int MAX_EXACT_DIGITS = 15;
+	private static final int MAX_EXACT_INT_DIGITS = 9;
+
+	private CharSequence line = "";
+	private int[] starts = new int[8];
+	private int[] ends = new int[8];
+	private int count;
+
+	CommandTokenizer() {
+	}
+
+	CommandTokenizer(CharSequence line) {
+		reset(line);
+	}
+
+	// Same tokens as line.split(" "): empty tokens between consecutive spaces are
+	// kept and trailing empty tokens are dropped.
+	public CommandTokenizer reset(CharSequence line) {
+		this.line = line;
+		count = 0;
+		int start = 0;
+		int length = line.length();
+		for (int i = 0; i < length; i++) {
+			if (line.charAt(i) == ' ') {
+				add(start, i);
+				start = i + 1;
+			}
+		}
+		if (count == 0) {
+			add(0, length);
+			return this;
+		}
+		add(start, length);
+		while (count > 0 && starts[count - 1] == ends[count - 1]) {
+			count--;
+		}
+		return this;
+	}
+
+	private void add(int start, int end) {
+		if (count == starts.length) {
+			starts = Arrays.copyOf(starts, count * 2);
+			ends = Arrays.copyOf(ends, count * 2);
+		}
+		starts[count] = start;
+		ends[count] = end;
+		count++;
+	}
+
+	public CharSequence line() {
+		return line;
+	}
+
+	public int count() {
+		return count;
+	}
+
+	public int length(int index) {
+		checkIndex(index);
+		return ends[index] - starts[index];
+	}
+
+	public char charAt(int index, int position) {
+		checkIndex(index);
+		return line.charAt(starts[index] + position);
+	}
+
+	public String token(int index) {
+		checkIndex(index);
+		return line.subSequence(starts[index], ends[index]).toString();
+	}
+
+	public boolean is(int index, String word) {
+		checkIndex(index);
+		int start = starts[index];
+		if (ends[index] - start != word.length()) {
+			return false;
+		}
+		for (int i = 0; i < word.length(); i++) {
+			if (!sameIgnoringCase(line.charAt(start + i), word.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int parseInt(int index) {
+		checkIndex(index);
+		int start = starts[index];
+		int end = ends[index];
+		boolean negative = false;
+		int i = start;
+		if (i < end && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+			negative = line.charAt(i) == '-';
+			i++;
+		}
+		if (i == end || end - i > MAX_EXACT_INT_DIGITS) {
+			return Integer.parseInt(token(index));
+		}
+		int value = 0;
+		for (; i < end; i++) {
+			char c = line.charAt(i);
+			if (c < '0' || c > '9') {
+				return Integer.parseInt(token(index));
+			}
+			value = value * 10 + (c - '0');
+		}
+		return negative ? -value : value;
+	}
+
+	// Decides plain ASCII tokens without throwing; only what parseInt would hand
+	// to Integer.parseInt goes through it.
+	public boolean isInt(int index) {
+		checkIndex(index);
+		int start = starts[index];
+		int end = ends[index];
+		int i = start;
+		if (i < end && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+			i++;
+		}
+		if (i == end) {
+			return false;
+		}
+		if (end - i <= MAX_EXACT_INT_DIGITS) {
+			boolean ascii = true;
+			for (; i < end; i++) {
+				char c = line.charAt(i);
+				if (c >= 0x80) {
+					ascii = false;
+				} else if (c < '0' || c > '9') {
+					return false;
+				}
+			}
+			if (ascii) {
+				return true;
+			}
+		}
+		try {
+			parseInt(index);
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	// Plain decimals of up to 15 digits are exact as mantissa / 10^scale, which is
+	// what Double.parseDouble returns for them; anything else goes through it.
+	public double parseDouble(int index) {
+		checkIndex(index);
+		int start = starts[index];
+		int end = ends[index];
+		boolean negative = false;
+		int i = start;
+		if (i < end && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+			negative = line.charAt(i) == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int scale = -1;
+		for (; i < end; i++) {
+			char c = line.charAt(i);
+			if (c >= '0' && c <= '9') {
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+				if (scale >= 0) {
+					scale++;
+				}
+			} else if (c == '.' && scale < 0) {
+				scale = 0;
+			} else {
+				return Double.parseDouble(token(index));
+			}
+		}
+		if (digits == 0 || digits > MAX_EXACT_DIGITS) {
+			return Double.parseDouble(token(index));
+		}
+		double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+		return negative ? -value : value;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= count) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+	}
+
+	private static boolean sameIgnoringCase(char a, char b) {
+		if (a == b) {
+			return true;
+		}
+		char upperA = Character.toUpperCase(a);
+		char upperB = Character.toUpperCase(b);
+		return upperA == upperB || Character.toLowerCase(upperA) == Character.toLowerCase(upperB);
+	}
+}
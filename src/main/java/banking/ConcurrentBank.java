@@ -0,0 +1,455 @@
+package banking;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+// Single-account operations lock the stripe of the account's slot, so operations
+// on accounts in different stripes run in parallel. Creating and removing accounts
+// also takes the structure lock; growing the store and passing time take every
+// stripe, because they touch all accounts or replace the store's arrays.
+//
+// The stripes are StampedLocks, so query can read an account optimistically:
+// it takes no lock at all and only falls back to the read lock if a writer got
+// to the stripe while it was reading.
+//
+// Deposits and withdrawals on a lock-free account share its stripe's read lock
+// and leave the balance to the store's compare-and-set, so threads hammering one
+// account do not queue behind each other. Anything else on the stripe, including
+// growing the store and passing time, takes the write lock and so waits until
+// none of them is in flight.
+public class ConcurrentBank extends Bank {
+	private static final int DEFAULT_STRIPES = 64;
+
+	private final ConcurrentHashMap<String, Integer> slotsById = new ConcurrentHashMap<>();
+	private final ReentrantLock structure = new ReentrantLock();
+	private final StampedLock[] stripes;
+	private final Lock[] writeLocks;
+	private final Lock[] readLocks;
+	private final int mask;
+
+	ConcurrentBank() {
+		this(DEFAULT_STRIPES);
+	}
+
+	ConcurrentBank(int stripeCount) {
+		int count = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+		stripes = new StampedLock[count];
+		writeLocks = new Lock[count];
+		readLocks = new Lock[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new StampedLock();
+			writeLocks[i] = stripes[i].asWriteLock();
+			readLocks[i] = stripes[i].asReadLock();
+		}
+		mask = count - 1;
+	}
+
+	Lock stripe(int slot) {
+		return writeLocks[slot & mask];
+	}
+
+	// Locks the stripe of the account's slot and returns the slot, or NONE if there
+	// is no such account. The slot is checked again under the lock because the
+	// account may have been closed and its slot reused since it was looked up.
+	int lock(String id) {
+		while (true) {
+			Integer slot = slotsById.get(id);
+			if (slot == null) {
+				return IdIndex.NONE;
+			}
+			Lock lock = stripe(slot);
+			lock.lock();
+			if (id.equals(getAccounts().id(slot))) {
+				return slot;
+			}
+			lock.unlock();
+		}
+	}
+
+	// Locks the account for a deposit or withdrawal, with the stripe's read lock
+	// for a lock-free account and its write lock otherwise, and returns its slot.
+	// Neither the account nor its mode can change while either lock is held, so
+	// unlockForUpdate knows which one to let go of.
+	private int lockForUpdate(String id) {
+		AccountStore accounts = getAccounts();
+		while (true) {
+			Integer slot = slotsById.get(id);
+			if (slot == null) {
+				throw new IllegalArgumentException("No account " + id);
+			}
+			boolean lockFree = accounts.lockFree(slot);
+			Lock lock = lockFree ? readLocks[slot & mask] : writeLocks[slot & mask];
+			lock.lock();
+			if (id.equals(accounts.id(slot)) && accounts.lockFree(slot) == lockFree) {
+				return slot;
+			}
+			lock.unlock();
+		}
+	}
+
+	private void unlockForUpdate(int slot) {
+		if (getAccounts().lockFree(slot)) {
+			readLocks[slot & mask].unlock();
+		} else {
+			writeLocks[slot & mask].unlock();
+		}
+	}
+
+	private int lockExisting(String id) {
+		int slot = lock(id);
+		if (slot == IdIndex.NONE) {
+			throw new IllegalArgumentException("No account " + id);
+		}
+		return slot;
+	}
+
+	private void lockAll() {
+		for (Lock lock : writeLocks) {
+			lock.lock();
+		}
+	}
+
+	private void unlockAll() {
+		for (int i = writeLocks.length - 1; i >= 0; i--) {
+			writeLocks[i].unlock();
+		}
+	}
+
+	private void reserveSlot() {
+		if (getAccounts().full()) {
+			lockAll();
+			try {
+				getAccounts().grow();
+			} finally {
+				unlockAll();
+			}
+		}
+	}
+
+	@Override
+	public void create(String id, Account account) {
+		structure.lock();
+		try {
+			reserveSlot();
+			super.create(id, account);
+		} finally {
+			structure.unlock();
+		}
+	}
+
+	@Override
+	void restore(String id, AccountType type, double balance, double apr, int age, boolean withdrawn) {
+		structure.lock();
+		try {
+			reserveSlot();
+			super.restore(id, type, balance, apr, age, withdrawn);
+		} finally {
+			structure.unlock();
+		}
+	}
+
+	@Override
+	void put(String id, int slot) {
+		Integer previous = slotsById.put(id, slot);
+		if (previous != null) {
+			release(previous);
+		}
+	}
+
+	@Override
+	int slotOf(String id) {
+		Integer slot = slotsById.get(id);
+		if (slot == null) {
+			return IdIndex.NONE;
+		}
+		return slot;
+	}
+
+	@Override
+	int removeSlot(String id) {
+		Integer slot = slotsById.remove(id);
+		if (slot == null) {
+			return IdIndex.NONE;
+		}
+		return slot;
+	}
+
+	private void release(int slot) {
+		Lock lock = stripe(slot);
+		lock.lock();
+		try {
+			getAccounts().release(slot);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public ArrayList<String> getAccountNumber() {
+		structure.lock();
+		try {
+			return super.getAccountNumber();
+		} finally {
+			structure.unlock();
+		}
+	}
+
+	@Override
+	public Account getId(String id) {
+		int slot = lock(id);
+		if (slot == IdIndex.NONE) {
+			return null;
+		}
+		try {
+			return Account.of(getAccounts(), slot);
+		} finally {
+			stripe(slot).unlock();
+		}
+	}
+
+	// Never blocks a writer. The snapshot is read with no lock held and kept if the
+	// stripe saw no write meanwhile; otherwise it is read again under the read
+	// lock. A slot whose account changed since the id was looked up means the id
+	// was closed or re-created, so the lookup starts over.
+	@Override
+	public AccountSnapshot query(String id) {
+		AccountStore accounts = getAccounts();
+		while (true) {
+			Integer slot = slotsById.get(id);
+			if (slot == null) {
+				return null;
+			}
+			StampedLock lock = stripes[slot & mask];
+			long stamp = lock.tryOptimisticRead();
+			AccountSnapshot snapshot = accounts.snapshot(slot);
+			if (!lock.validate(stamp)) {
+				stamp = lock.readLock();
+				try {
+					snapshot = accounts.snapshot(slot);
+				} finally {
+					lock.unlockRead(stamp);
+				}
+			}
+			if (snapshot != null && id.equals(snapshot.getId())) {
+				return snapshot;
+			}
+		}
+	}
+
+	@Override
+	AccountType getType(String id) {
+		int slot = lock(id);
+		if (slot == IdIndex.NONE) {
+			return null;
+		}
+		try {
+			return getAccounts().type(slot);
+		} finally {
+			stripe(slot).unlock();
+		}
+	}
+
+	@Override
+	public double getAmount(String id) {
+		int slot = lockExisting(id);
+		try {
+			return getAccounts().balance(slot);
+		} finally {
+			stripe(slot).unlock();
+		}
+	}
+
+	@Override
+	double getAPR(String id) {
+		int slot = lockExisting(id);
+		try {
+			return getAccounts().apr(slot);
+		} finally {
+			stripe(slot).unlock();
+		}
+	}
+
+	@Override
+	int getTime(String id) {
+		int slot = lockExisting(id);
+		try {
+			return getAccounts().age(slot);
+		} finally {
+			stripe(slot).unlock();
+		}
+	}
+
+	// Under the write lock, so no withdrawal on a lock-free account is between
+	// swapping in its balance and flipping the flag.
+	@Override
+	boolean getWithdrawalStatus(String id) {
+		int slot = lockExisting(id);
+		try {
+			return getAccounts().withdrawn(slot);
+		} finally {
+			stripe(slot).unlock();
+		}
+	}
+
+	@Override
+	void makeLockFree(String id) {
+		int slot = lockExisting(id);
+		try {
+			getAccounts().makeLockFree(slot);
+		} finally {
+			stripe(slot).unlock();
+		}
+	}
+
+	@Override
+	public void depositIn(String id, double amount) {
+		int slot = lockForUpdate(id);
+		try {
+			getAccounts().deposit(slot, amount);
+		} finally {
+			unlockForUpdate(slot);
+		}
+	}
+
+	@Override
+	public void withdrawFrom(String id, double amount) {
+		int slot = lockForUpdate(id);
+		try {
+			getAccounts().withdraw(slot, amount);
+		} finally {
+			unlockForUpdate(slot);
+		}
+	}
+
+	@Override
+	public void bankTransfer(String transferFrom, String transferTo, Double amount) {
+		transfer(transferFrom, transferTo, amount, false);
+	}
+
+	@Override
+	public void transfer(String transferFrom, String transferTo, double amount) {
+		transfer(transferFrom, transferTo, amount, true);
+	}
+
+	// Both stripes are taken in ascending stripe order, which is the same global
+	// order for every transfer, so two transfers can never wait on each other in a
+	// cycle. With both held, the capped amount moves in one atomic step.
+	private void transfer(String transferFrom, String transferTo, double amount, boolean capped) {
+		AccountStore accounts = getAccounts();
+		while (true) {
+			int slotFrom = slotOf(transferFrom);
+			int slotTo = slotOf(transferTo);
+			if (slotFrom == IdIndex.NONE || slotTo == IdIndex.NONE) {
+				throw new IllegalArgumentException("No account " + (slotFrom == IdIndex.NONE ? transferFrom : transferTo));
+			}
+			Lock first = stripe(Math.min(slotFrom & mask, slotTo & mask));
+			Lock second = stripe(Math.max(slotFrom & mask, slotTo & mask));
+			first.lock();
+			if (second != first) {
+				second.lock();
+			}
+			try {
+				if (transferFrom.equals(accounts.id(slotFrom)) && transferTo.equals(accounts.id(slotTo))) {
+					double final_amount = amount;
+					if (capped && final_amount > accounts.balance(slotFrom)) {
+						final_amount = accounts.balance(slotFrom);
+					}
+					accounts.deposit(slotTo, final_amount);
+					accounts.withdraw(slotFrom, final_amount);
+					return;
+				}
+			} finally {
+				if (second != first) {
+					second.unlock();
+				}
+				first.unlock();
+			}
+		}
+	}
+
+	// Takes the stripe of every account in the batch, in ascending order as a
+	// transfer does, and applies the whole batch under them: one lock acquisition
+	// per stripe instead of one or two per command. Ids are still looked up once
+	// per command, as in Bank.resolve.
+	@Override
+	public void applyBatch(MutationBatch batch) {
+		AccountStore accounts = getAccounts();
+		int[] batchSlots = new int[batch.size() * 2];
+		boolean[] touched = new boolean[writeLocks.length];
+		while (true) {
+			resolve(batch, batchSlots);
+			for (int i = 0; i < batch.size(); i++) {
+				touched[batchSlots[2 * i] & mask] = true;
+				if (batch.kind(i) == MutationBatch.TRANSFER) {
+					touched[batchSlots[2 * i + 1] & mask] = true;
+				}
+			}
+			for (int i = 0; i < touched.length; i++) {
+				if (touched[i]) {
+					writeLocks[i].lock();
+				}
+			}
+			try {
+				if (stillHeld(batch, batchSlots, accounts)) {
+					apply(batch, batchSlots);
+					return;
+				}
+			} finally {
+				for (int i = touched.length - 1; i >= 0; i--) {
+					if (touched[i]) {
+						writeLocks[i].unlock();
+						touched[i] = false;
+					}
+				}
+			}
+		}
+	}
+
+	// Whether every slot still holds the account it was resolved to; one that was
+	// closed or re-created since means resolving again.
+	private static boolean stillHeld(MutationBatch batch, int[] batchSlots, AccountStore accounts) {
+		for (int i = 0; i < batch.size(); i++) {
+			if (!batch.id(i).equals(accounts.id(batchSlots[2 * i]))) {
+				return false;
+			}
+			if (batch.kind(i) == MutationBatch.TRANSFER
+					&& !batch.targetId(i).equals(accounts.id(batchSlots[2 * i + 1]))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return slotsById.size();
+	}
+
+	@Override
+	public void remove(String id) {
+		structure.lock();
+		try {
+			int slot = removeSlot(id);
+			if (slot != IdIndex.NONE) {
+				release(slot);
+			}
+		} finally {
+			structure.unlock();
+		}
+	}
+
+	@Override
+	void passTime(int time, boolean parallel) {
+		structure.lock();
+		lockAll();
+		try {
+			super.passTime(time, parallel);
+		} finally {
+			unlockAll();
+			structure.unlock();
+		}
+	}
+}
@@ -1,7 +1,7 @@
 package banking;
 
 public class CreateCommandProcessor {
-	static Bank bank;
+	Bank bank;
 
 	public CreateCommandProcessor(Bank bank) {
 		this.bank = bank;
@@ -9,19 +9,19 @@ public class CreateCommandProcessor {
 	}
 
 	public void create(String s) {
-		String arr[] = s.split(" ");
-		String id = arr[2];
-		double apr = Double.parseDouble(arr[3]);
-		if (arr[1].equalsIgnoreCase("Checking")) {
-			Account checking = new Checking(0.00, apr);
-			bank.create(id, checking);
+		create(new ParsedCommand(s));
+	}
+
+	void create(ParsedCommand command) {
+		String id = command.id();
+		double apr = command.apr();
+		if (command.accountType() == AccountType.CHECKING) {
+			bank.create(id, AccountType.CHECKING, 0.00, apr);
 
-		} else if (arr[1].equalsIgnoreCase("Savings")) {
-			Account savings = new Savings(0.0, apr);
-			bank.create(id, savings);
-		} else if (arr[1].equalsIgnoreCase("CD")) {
-			Account cd = new CD(Integer.parseInt(arr[4]), apr);
-			bank.create(id, cd);
+		} else if (command.accountType() == AccountType.SAVINGS) {
+			bank.create(id, AccountType.SAVINGS, 0.0, apr);
+		} else if (command.accountType() == AccountType.CD) {
+			bank.create(id, AccountType.CD, command.amount(), apr);
 		}
 
 	}
@@ -1,5 +1,7 @@
 package banking;
 
+import banking.ParsedCommand.Operation;
+
 public class CreateValidator {
 	private final Bank bank;
 
@@ -8,17 +10,19 @@ public class CreateValidator {
 	}
 
 	Boolean commandArguments(String s) {
-		String arr[];
-		arr = s.split(" ");
-		if (arr[1].equalsIgnoreCase("CD")) {
-			if (arr.length != 5) {
+		return commandArguments(new ParsedCommand(s));
+	}
+
+	Boolean commandArguments(ParsedCommand command) {
+		if (command.accountType() == AccountType.CD) {
+			if (command.tokens().count() != 5) {
 				return false;
 			} else {
 				return true;
 			}
 
 		} else {
-			if (arr.length != 4) {
+			if (command.tokens().count() != 4) {
 				return false;
 			} else {
 				return true;
@@ -29,18 +33,19 @@ public class CreateValidator {
 	}
 
 	public boolean createValid(String s) {
-		String arr[] = s.split(" ");
-		if (arr[0].equalsIgnoreCase("create")) {
-			return true;
-		} else {
-			return false;
-		}
+		return createValid(new ParsedCommand(s));
+	}
+
+	boolean createValid(ParsedCommand command) {
+		return command.operation() == Operation.CREATE;
 	}
 
 	public boolean accountTypeValid(String s) {
-		String arr[] = s.split(" ");
-		if (arr[1].equalsIgnoreCase("Checking") || arr[1].equalsIgnoreCase("Savings")
-				|| arr[1].equalsIgnoreCase("CD")) {
+		return accountTypeValid(new ParsedCommand(s));
+	}
+
+	boolean accountTypeValid(ParsedCommand command) {
+		if (command.accountType() != null) {
 			return true;
 		} else {
 			return false;
@@ -48,17 +53,12 @@ public class CreateValidator {
 	}
 
 	public boolean createIdValid(String s) {
-		String arr[] = s.split(" ");
-
-		if (arr[2].length() == 8) {
-			try {
-				Integer.parseInt(arr[2]);
-				return true;
-
-			} catch (Exception e) {
-				return false;
-			}
+		return createIdValid(new ParsedCommand(s));
+	}
 
+	boolean createIdValid(ParsedCommand command) {
+		if (command.tokens().length(2) == 8) {
+			return command.tokens().isInt(2);
 		} else {
 			return false;
 		}
@@ -66,8 +66,11 @@ public class CreateValidator {
 	}
 
 	public boolean idIsUnique(String s) {
-		String arr[] = s.split(" ");
-		if (bank.containsKey(arr[2])) {
+		return idIsUnique(new ParsedCommand(s));
+	}
+
+	boolean idIsUnique(ParsedCommand command) {
+		if (bank.containsKey(command.id())) {
 			return false;
 		} else {
 			return true;
@@ -76,12 +79,13 @@ public class CreateValidator {
 	}
 
 	public boolean aprIsValid(String s) {
-		String arr[] = s.split(" ");
-		try {
-
-			Double.parseDouble(arr[3]);
+		return aprIsValid(new ParsedCommand(s));
+	}
 
-			if (Double.parseDouble(arr[3]) < 0 || Double.parseDouble(arr[3]) > 10) {
+	boolean aprIsValid(ParsedCommand command) {
+		try {
+			double apr = command.apr();
+			if (apr < 0 || apr > 10) {
 				return false;
 			} else {
 				return true;
@@ -93,12 +97,13 @@ public class CreateValidator {
 	}
 
 	public boolean createAmountValid(String s) {
-		String arr[] = s.split(" ");
+		return createAmountValid(new ParsedCommand(s));
+	}
 
+	boolean createAmountValid(ParsedCommand command) {
 		try {
-			Double.parseDouble(arr[4]);
-
-			if (Double.parseDouble(arr[4]) >= 1000 && Double.parseDouble(arr[4]) <= 10000) {
+			double amount = command.amount();
+			if (amount >= 1000 && amount <= 10000) {
 				return true;
 			} else {
 				return false;
@@ -110,17 +115,20 @@ public class CreateValidator {
 	}
 
 	public boolean validate(String s) {
-		String arr[] = s.split(" ");
-		if (arr[1].equalsIgnoreCase("CD")) {
-			if (commandArguments(s) && createValid(s) && accountTypeValid(s) && createIdValid(s) && idIsUnique(s)
-					&& aprIsValid(s) && createAmountValid(s)) {
+		return validate(new ParsedCommand(s));
+	}
+
+	boolean validate(ParsedCommand command) {
+		if (command.accountType() == AccountType.CD) {
+			if (commandArguments(command) && createValid(command) && accountTypeValid(command) && createIdValid(command)
+					&& idIsUnique(command) && aprIsValid(command) && createAmountValid(command)) {
 				return true;
 			} else {
 				return false;
 			}
 		} else {
-			if (commandArguments(s) && createValid(s) && accountTypeValid(s) && createIdValid(s) && idIsUnique(s)
-					&& aprIsValid(s)) {
+			if (commandArguments(command) && createValid(command) && accountTypeValid(command) && createIdValid(command)
+					&& idIsUnique(command) && aprIsValid(command)) {
 				return true;
 			} else {
 				return false;
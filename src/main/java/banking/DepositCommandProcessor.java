@@ -8,10 +8,13 @@ public class DepositCommandProcessor {
 	}
 
 	public void deposit(String s) {
-		String arr[] = s.split(" ");
-		String id = arr[1];
-		double amount = Double.parseDouble(arr[2]);
-		((Account) bank.getId(id)).depositIn(id, amount);
+		deposit(new ParsedCommand(s));
+	}
+
+	void deposit(ParsedCommand command) {
+		String id = command.id();
+		double amount = command.amount();
+		bank.depositIn(id, amount);
 
 	}
 
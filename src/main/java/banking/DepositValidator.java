@@ -1,5 +1,7 @@
 package banking;
 
+import banking.ParsedCommand.Operation;
+
 public class DepositValidator {
 	private final Bank bank;
 
@@ -8,13 +10,11 @@ public class DepositValidator {
 	}
 
 	public boolean depositValid(String s) {
-		String arr[] = s.split(" ");
-		if (arr[0].equalsIgnoreCase("deposit")) {
+		return depositValid(new ParsedCommand(s));
+	}
 
-			return true;
-		} else {
-			return false;
-		}
+	boolean depositValid(ParsedCommand command) {
+		return command.operation() == Operation.DEPOSIT;
 	}
 
 	public boolean accountExists(String s) {
@@ -28,60 +28,72 @@ public class DepositValidator {
 	}
 
 	public boolean depositIdValid(String s) {
-		String arr[] = s.split(" ");
-		if (commandArguments(s)) {
-			if (accountExists(arr[1])) {
-				if (arr[1].length() == 8) {
-					try {
-						Integer.parseInt(arr[1]);
-						return true;
-
-					} catch (Exception e) {
-						return false;
-					}
-
-				} else {
-					return false;
-				}
+		return depositIdValid(new ParsedCommand(s));
+	}
+
+	boolean depositIdValid(ParsedCommand command) {
+		if (commandArguments(command)) {
+			return idValid(command.id(), command.tokens(), 1);
+		} else {
+			return false;
+		}
+
+	}
+
+	// id is the token at index in tokens.
+	boolean idValid(String id, CommandTokenizer tokens, int index) {
+		if (accountExists(id)) {
+			if (id.length() == 8) {
+				return tokens.isInt(index);
+
 			} else {
 				return false;
 			}
 		} else {
 			return false;
 		}
-
 	}
 
 	public boolean depositAmountValid(String s) {
-		String arr[] = s.split(" ");
-		double amount = Double.parseDouble(arr[2]);
-		if (depositIdValid(s)) {
-			Account account = (Account) bank.getId(arr[1]);
-			if (account instanceof Savings) {
-				if (amount >= 0 && amount <= 2500) {
-					return true;
-				}
-				return false;
+		return depositAmountValid(new ParsedCommand(s));
+	}
 
-			} else if (account instanceof Checking) {
-				if (amount >= 0 && amount <= 1000) {
-					return true;
-				}
-				return false;
+	boolean depositAmountValid(ParsedCommand command) {
+		double amount = command.amount();
+		if (depositIdValid(command)) {
+			return amountValid(command.id(), amount);
+		}
+		return false;
 
-			} else if (account instanceof CD) {
-				return false;
+	}
+
+	boolean amountValid(String id, double amount) {
+		AccountType type = bank.getType(id);
+		if (type == AccountType.SAVINGS) {
+			if (amount >= 0 && amount <= 2500) {
+				return true;
+			}
+			return false;
 
+		} else if (type == AccountType.CHECKING) {
+			if (amount >= 0 && amount <= 1000) {
+				return true;
 			}
+			return false;
+
+		} else if (type == AccountType.CD) {
+			return false;
 
 		}
 		return false;
-
 	}
 
 	public boolean commandArguments(String s) {
-		String arr[] = s.split(" ");
-		if (arr.length != 3) {
+		return commandArguments(new ParsedCommand(s));
+	}
+
+	boolean commandArguments(ParsedCommand command) {
+		if (command.tokens().count() != 3) {
 			return false;
 		} else {
 			return true;
@@ -89,11 +101,23 @@ public class DepositValidator {
 	}
 
 	public boolean validate(String s) {
-		if (depositValid(s) && depositIdValid(s) && depositAmountValid(s) && commandArguments(s)) {
+		return validate(new ParsedCommand(s));
+	}
+
+	boolean validate(ParsedCommand command) {
+		if (depositValid(command) && depositIdValid(command) && depositAmountValid(command)
+				&& commandArguments(command)) {
 			return true;
 		} else {
 			return false;
 		}
 	}
 
+	boolean validate(String id, int index, ParsedCommand command) {
+		if (idValid(id, command.tokens(), index)) {
+			return amountValid(id, command.amount());
+		}
+		return false;
+	}
+
 }
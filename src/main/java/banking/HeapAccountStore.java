@@ -0,0 +1,342 @@
+package banking;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+// Every column of the store is a plain Java array, indexed by slot.
+public class HeapAccountStore extends AccountStore {
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final VarHandle BALANCES = MethodHandles.arrayElementVarHandle(double[].class);
+	private static final VarHandle WITHDRAWN = MethodHandles.arrayElementVarHandle(boolean[].class);
+
+	private String[] ids;
+	private double[] balances;
+	private double[] aprs;
+	private int[] ages;
+	private byte[] types;
+	private boolean[] withdrawn;
+	private boolean[] lockFree;
+	private int[] next;
+	private int[] previous;
+	private int first = NONE;
+	private int last = NONE;
+	private int[] freeSlots = new int[DEFAULT_CAPACITY];
+	private int freeCount;
+	private int limit;
+	private int size;
+
+	HeapAccountStore() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	HeapAccountStore(int capacity) {
+		ids = new String[capacity];
+		balances = new double[capacity];
+		aprs = new double[capacity];
+		ages = new int[capacity];
+		types = new byte[capacity];
+		withdrawn = new boolean[capacity];
+		lockFree = new boolean[capacity];
+		next = new int[capacity];
+		previous = new int[capacity];
+	}
+
+	@Override
+	int allocate(String id, AccountType type, double balance, double apr, int age, boolean withdrawnThisMonth) {
+		int slot;
+		if (freeCount > 0) {
+			slot = freeSlots[--freeCount];
+		} else {
+			if (limit == types.length) {
+				grow();
+			}
+			slot = limit++;
+		}
+		ids[slot] = id;
+		balances[slot] = balance;
+		aprs[slot] = apr;
+		ages[slot] = age;
+		types[slot] = (byte) type.ordinal();
+		withdrawn[slot] = withdrawnThisMonth;
+		lockFree[slot] = false;
+		link(slot);
+		size++;
+		return slot;
+	}
+
+	@Override
+	boolean full() {
+		return freeCount == 0 && limit == types.length;
+	}
+
+	@Override
+	void grow() {
+		int capacity = Math.max(DEFAULT_CAPACITY, types.length * 2);
+		ids = Arrays.copyOf(ids, capacity);
+		balances = Arrays.copyOf(balances, capacity);
+		aprs = Arrays.copyOf(aprs, capacity);
+		ages = Arrays.copyOf(ages, capacity);
+		types = Arrays.copyOf(types, capacity);
+		withdrawn = Arrays.copyOf(withdrawn, capacity);
+		lockFree = Arrays.copyOf(lockFree, capacity);
+		next = Arrays.copyOf(next, capacity);
+		previous = Arrays.copyOf(previous, capacity);
+	}
+
+	// Live slots form a doubly linked list in creation order, so closing an account
+	// unlinks it in constant time and output still walks accounts oldest first.
+	private void link(int slot) {
+		previous[slot] = last;
+		next[slot] = NONE;
+		if (last == NONE) {
+			first = slot;
+		} else {
+			next[last] = slot;
+		}
+		last = slot;
+	}
+
+	private void unlink(int slot) {
+		if (previous[slot] == NONE) {
+			first = next[slot];
+		} else {
+			next[previous[slot]] = next[slot];
+		}
+		if (next[slot] == NONE) {
+			last = previous[slot];
+		} else {
+			previous[next[slot]] = previous[slot];
+		}
+	}
+
+	@Override
+	void release(int slot) {
+		unlink(slot);
+		ids[slot] = null;
+		balances[slot] = 0;
+		aprs[slot] = 0;
+		ages[slot] = 0;
+		types[slot] = FREE;
+		withdrawn[slot] = false;
+		lockFree[slot] = false;
+		if (freeCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+		}
+		freeSlots[freeCount++] = slot;
+		size--;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	int first() {
+		return first;
+	}
+
+	@Override
+	int next(int slot) {
+		return next[slot];
+	}
+
+	@Override
+	String id(int slot) {
+		return ids[slot];
+	}
+
+	// Safe to call without the slot's lock: it never throws, even while the arrays
+	// are being replaced, but what it returns may be torn and only counts if
+	// nothing wrote to the slot in the meantime. Returns null for a free slot or
+	// one the arrays do not reach.
+	@Override
+	AccountSnapshot snapshot(int slot) {
+		String[] ids = this.ids;
+		byte[] types = this.types;
+		double[] balances = this.balances;
+		double[] aprs = this.aprs;
+		int[] ages = this.ages;
+		if (slot < 0 || slot >= ids.length || slot >= types.length || slot >= balances.length || slot >= aprs.length
+				|| slot >= ages.length) {
+			return null;
+		}
+		byte type = types[slot];
+		if (type < 0 || type >= TYPE_COUNT) {
+			return null;
+		}
+		return new AccountSnapshot(ids[slot], AccountType.of(type), balances[slot], aprs[slot], ages[slot]);
+	}
+
+	@Override
+	public AccountType type(int slot) {
+		return AccountType.of(types[slot]);
+	}
+
+	@Override
+	boolean lockFree(int slot) {
+		return lockFree[slot];
+	}
+
+	@Override
+	void makeLockFree(int slot) {
+		lockFree[slot] = true;
+	}
+
+	@Override
+	public double balance(int slot) {
+		if (lockFree[slot]) {
+			return (double) BALANCES.getVolatile(balances, slot);
+		}
+		return balances[slot];
+	}
+
+	@Override
+	public double apr(int slot) {
+		return aprs[slot];
+	}
+
+	@Override
+	public int age(int slot) {
+		return ages[slot];
+	}
+
+	@Override
+	public boolean withdrawn(int slot) {
+		if (lockFree[slot]) {
+			return (boolean) WITHDRAWN.getVolatile(withdrawn, slot);
+		}
+		return withdrawn[slot];
+	}
+
+	@Override
+	void deposit(int slot, double amount) {
+		if (lockFree[slot]) {
+			double balance;
+			do {
+				balance = (double) BALANCES.getVolatile(balances, slot);
+			} while (!BALANCES.compareAndSet(balances, slot, balance, balance + amount));
+		} else {
+			balances[slot] = balances[slot] + amount;
+		}
+	}
+
+	// A savings withdrawal that leaves nothing flips the withdrawal flag. On a
+	// lock-free slot the flag is flipped after the balance is swapped in, once
+	// per emptying withdrawal, so concurrent withdrawals still flip it the same
+	// number of times as they would one after another. The balance and the flag
+	// are two words, though, and are not kept consistent with each other while
+	// withdrawals are in flight: a reader can see the new balance with the old
+	// flag. So withdrawn, setAge and passTime on a lock-free slot need every
+	// deposit and withdrawal on it to have finished, as ConcurrentBank's write
+	// lock ensures.
+	@Override
+	void withdraw(int slot, double amount) {
+		byte type = types[slot];
+		double balance;
+		double remaining;
+		boolean lockFree = this.lockFree[slot];
+		if (lockFree) {
+			do {
+				balance = (double) BALANCES.getVolatile(balances, slot);
+				remaining = remaining(type, balance, amount);
+			} while (!BALANCES.compareAndSet(balances, slot, balance, remaining));
+		} else {
+			remaining = remaining(type, balances[slot], amount);
+			balances[slot] = remaining;
+		}
+		if (type == AccountType.SAVINGS.ordinal() && remaining == 0) {
+			if (lockFree) {
+				WITHDRAWN.getAndBitwiseXor(withdrawn, slot, true);
+			} else {
+				withdrawn[slot] = !withdrawn[slot];
+			}
+		}
+	}
+
+	@Override
+	void setAge(int slot, int age) {
+		if (types[slot] == AccountType.SAVINGS.ordinal() && age > ages[slot]) {
+			withdrawn[slot] = false;
+		}
+		ages[slot] = age;
+	}
+
+	@Override
+	void compound(int slot, int months) {
+		ages[slot] += months;
+		double rate = InterestEngine.monthlyRate(aprs[slot]);
+		int periods = months * periodsPerMonth(types[slot]);
+		for (int i = 0; i < periods; i++) {
+			balances[slot] += rate * balances[slot];
+		}
+	}
+
+	@Override
+	int limit() {
+		return limit;
+	}
+
+	@Override
+	int[] passTime(int months, int from, int to) {
+		int[] closedSlots = new int[0];
+		int closedCount = 0;
+		for (int slot = from; slot < to; slot++) {
+			if (types[slot] == FREE) {
+				continue;
+			}
+			if (balances[slot] == 0) {
+				if (closedCount == closedSlots.length) {
+					closedSlots = Arrays.copyOf(closedSlots, Math.max(8, closedCount * 2));
+				}
+				closedSlots[closedCount++] = slot;
+				continue;
+			}
+			if (balances[slot] < 100) {
+				withdraw(slot, 25);
+			}
+			ages[slot] += months;
+		}
+		compound(months, from, to);
+		return Arrays.copyOf(closedSlots, closedCount);
+	}
+
+	// Every account gets `months` periods block by block; CDs in the block are then
+	// gathered for their remaining periods, so each balance sees the same sequence
+	// of operations as compound(slot, months). Empty accounts stay at zero.
+	private void compound(int months, int from, int to) {
+		int block = InterestEngine.BLOCK;
+		double[] rates = new double[block];
+		double[] cdBalances = new double[block];
+		double[] cdRates = new double[block];
+		int[] cdSlots = new int[block];
+		int cdPeriods = months * (Account.CD_PERIODS_PER_MONTH - 1);
+		for (int start = from; start < to; start += block) {
+			int count = Math.min(block, to - start);
+			int cdCount = 0;
+			for (int i = 0; i < count; i++) {
+				int slot = start + i;
+				if (types[slot] == FREE) {
+					rates[i] = 0;
+				} else {
+					rates[i] = InterestEngine.monthlyRate(aprs[slot]);
+					if (types[slot] == AccountType.CD.ordinal()) {
+						cdSlots[cdCount++] = slot;
+					}
+				}
+			}
+			InterestEngine.compound(balances, start, rates, count, months);
+			if (cdCount > 0) {
+				for (int i = 0; i < cdCount; i++) {
+					cdBalances[i] = balances[cdSlots[i]];
+					cdRates[i] = rates[cdSlots[i] - start];
+				}
+				InterestEngine.compound(cdBalances, 0, cdRates, cdCount, cdPeriods);
+				for (int i = 0; i < cdCount; i++) {
+					balances[cdSlots[i]] = cdBalances[i];
+				}
+			}
+		}
+	}
+}
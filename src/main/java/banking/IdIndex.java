@@ -0,0 +1,128 @@
+package banking;
+
+import java.util.Arrays;
+
+public class IdIndex {
+	static final int NONE = -1;
+	private static final int ID_LENGTH = 8;
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] keys;
+	private int[] slots;
+	private int mask;
+	private int shift;
+	private int size;
+
+	IdIndex() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	IdIndex(int expected) {
+		int capacity = DEFAULT_CAPACITY;
+		while (capacity < expected * 2) {
+			capacity *= 2;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		slots = new int[capacity];
+		Arrays.fill(keys, NONE);
+		mask = capacity - 1;
+		shift = 32 - Integer.numberOfTrailingZeros(capacity);
+	}
+
+	// Ids of exactly eight ASCII digits map one to one onto 0..99999999; any other
+	// id gets NONE and has to be looked up by its string.
+	static int key(CharSequence id) {
+		if (id.length() != ID_LENGTH) {
+			return NONE;
+		}
+		int key = 0;
+		for (int i = 0; i < ID_LENGTH; i++) {
+			char c = id.charAt(i);
+			if (c < '0' || c > '9') {
+				return NONE;
+			}
+			key = key * 10 + (c - '0');
+		}
+		return key;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private int home(int key) {
+		return (key * 0x9E3779B9) >>> shift;
+	}
+
+	int get(int key) {
+		for (int i = home(key);; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				return slots[i];
+			}
+			if (keys[i] == NONE) {
+				return NONE;
+			}
+		}
+	}
+
+	int put(int key, int slot) {
+		int i = home(key);
+		for (; keys[i] != NONE; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				int previous = slots[i];
+				slots[i] = slot;
+				return previous;
+			}
+		}
+		keys[i] = key;
+		slots[i] = slot;
+		if (++size * 2 > keys.length) {
+			rehash(keys.length * 2);
+		}
+		return NONE;
+	}
+
+	// Linear probing without tombstones: entries after the removed one are shifted
+	// back into the gap when their probe sequence passes through it.
+	int remove(int key) {
+		int i = home(key);
+		for (; keys[i] != key; i = (i + 1) & mask) {
+			if (keys[i] == NONE) {
+				return NONE;
+			}
+		}
+		int removed = slots[i];
+		int gap = i;
+		for (int j = (gap + 1) & mask; keys[j] != NONE; j = (j + 1) & mask) {
+			int home = home(keys[j]);
+			if (((j - home) & mask) >= ((j - gap) & mask)) {
+				keys[gap] = keys[j];
+				slots[gap] = slots[j];
+				gap = j;
+			}
+		}
+		keys[gap] = NONE;
+		size--;
+		return removed;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		int[] oldSlots = slots;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != NONE) {
+				int j = home(oldKeys[i]);
+				while (keys[j] != NONE) {
+					j = (j + 1) & mask;
+				}
+				keys[j] = oldKeys[i];
+				slots[j] = oldSlots[i];
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package banking;
+
+public class InterestEngine {
+	static final int BLOCK = 512;
+
+	private InterestEngine() {
+	}
+
+	static double monthlyRate(double apr) {
+		return (apr / 100) / 12;
+	}
+
+	// Applies balance += rate * balance `periods` times to each balance, exactly as
+	// Account.passTimeCalc does, but one cache-sized block of accounts at a time so
+	// the inner loop is a straight pass over primitive arrays that C2 vectorizes.
+	public static void compound(double[] balances, double[] rates, int count, int periods) {
+		for (int start = 0; start < count; start += BLOCK) {
+			int end = Math.min(start + BLOCK, count);
+			for (int period = 0; period < periods; period++) {
+				for (int i = start; i < end; i++) {
+					balances[i] += rates[i] * balances[i];
+				}
+			}
+		}
+	}
+
+	// Same as above for a single block: rates[i] applies to balances[offset + i].
+	static void compound(double[] balances, int offset, double[] rates, int count, int periods) {
+		for (int period = 0; period < periods; period++) {
+			for (int i = 0; i < count; i++) {
+				balances[offset + i] += rates[i] * balances[offset + i];
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package banking;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// Writes lines to a channel as UTF-8, each ended by a newline, encoding the
+// characters straight into one reused direct buffer. A lone surrogate is written
+// as '?', as String.getBytes would.
+public class LineWriter implements Flushable {
+	static final int BUFFER_BYTES = 1 << 16;
+	private static final int MAX_BYTES_PER_CHAR = 3;
+	private static final int CHUNK = BUFFER_BYTES / MAX_BYTES_PER_CHAR - 1;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+	private char[] scratch = new char[64];
+
+	LineWriter(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	// A buffer of at least length characters for building a line in, reused from
+	// call to call.
+	char[] scratch(int length) {
+		if (scratch.length < length) {
+			scratch = new char[Math.max(length, scratch.length * 2)];
+		}
+		return scratch;
+	}
+
+	LineWriter append(char c) throws IOException {
+		reserve(MAX_BYTES_PER_CHAR + 1);
+		put(c);
+		return this;
+	}
+
+	LineWriter append(CharSequence text) throws IOException {
+		int length = text.length();
+		int i = 0;
+		while (i < length) {
+			int end = Math.min(length, i + CHUNK);
+			reserve((end - i + 1) * MAX_BYTES_PER_CHAR);
+			i = put(text, i, end, length);
+		}
+		return this;
+	}
+
+	LineWriter append(char[] text, int from, int to) throws IOException {
+		int i = from;
+		while (i < to) {
+			int end = Math.min(to, i + CHUNK);
+			reserve((end - i + 1) * MAX_BYTES_PER_CHAR);
+			for (; i < end; i++) {
+				char c = text[i];
+				if (c < 0x80) {
+					buffer.put((byte) c);
+				} else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(text[i + 1])) {
+					putCodePoint(Character.toCodePoint(c, text[++i]));
+				} else {
+					put(c);
+				}
+			}
+		}
+		return this;
+	}
+
+	void line(CharSequence text) throws IOException {
+		append(text).endLine();
+	}
+
+	void line(char[] text, int from, int to) throws IOException {
+		append(text, from, to).endLine();
+	}
+
+	void endLine() throws IOException {
+		reserve(1);
+		buffer.put((byte) '\n');
+	}
+
+	// Encodes from up to end, or one character past it to finish a surrogate pair,
+	// and returns where it stopped.
+	private int put(CharSequence text, int from, int end, int length) {
+		int i = from;
+		for (; i < end; i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				buffer.put((byte) c);
+			} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+				putCodePoint(Character.toCodePoint(c, text.charAt(++i)));
+			} else {
+				put(c);
+			}
+		}
+		return i;
+	}
+
+	private void put(char c) {
+		if (c < 0x80) {
+			buffer.put((byte) c);
+		} else if (c < 0x800) {
+			buffer.put((byte) (0xC0 | c >> 6));
+			buffer.put((byte) (0x80 | c & 0x3F));
+		} else if (Character.isSurrogate(c)) {
+			buffer.put((byte) '?');
+		} else {
+			buffer.put((byte) (0xE0 | c >> 12));
+			buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+			buffer.put((byte) (0x80 | c & 0x3F));
+		}
+	}
+
+	private void putCodePoint(int codePoint) {
+		buffer.put((byte) (0xF0 | codePoint >> 18));
+		buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+		buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+		buffer.put((byte) (0x80 | codePoint & 0x3F));
+	}
+
+	private void reserve(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			drain();
+		}
+	}
+
+	private void drain() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	@Override
+	public void flush() throws IOException {
+		drain();
+	}
+}
@@ -0,0 +1,503 @@
+package banking;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Keeps every account as a fixed-size record in a memory-mapped file, so the
+// state lives in the page cache rather than on the heap and is still there when
+// the file is opened again. The file is a header followed by segments of
+// SEGMENT_RECORDS records; growing maps one more segment and leaves the ones
+// already mapped where they are. The header is
+//
+//   int magic | int version | int record bytes | int limit | int first | int last | int size
+//
+// and a record, little-endian, is
+//
+//   double balance | double apr | int age | int next | int previous
+//   | byte type | byte withdrawn | byte id length | byte unused | 32 bytes of UTF-8 id
+//
+// Every update is written straight into its record and the header, so a process
+// that dies between two calls loses nothing; force makes them durable against a
+// machine crash. A process that dies inside allocate or release can leave that
+// one record half added or half removed. Their writes are ordered so the list
+// from first is always whole: allocate raises limit before touching a new record
+// and links the record last, release unlinks it first, and linking or unlinking
+// the head writes first to the header at once. Opening takes the list as the
+// truth, frees any record not on it and works out last and size again, in one
+// pass over the list and one over the types.
+public class MappedAccountStore extends AccountStore implements Closeable {
+	static final int MAGIC = 0x424E4B4C;
+	static final int VERSION = 1;
+	static final int RECORD_BYTES = 64;
+	static final int MAX_ID_BYTES = 32;
+	static final int SEGMENT_RECORDS = 1 << 16;
+	private static final int SEGMENT_SHIFT = Integer.numberOfTrailingZeros(SEGMENT_RECORDS);
+	private static final int SEGMENT_MASK = SEGMENT_RECORDS - 1;
+	private static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD_BYTES;
+	static final int HEADER_BYTES = 64;
+	private static final byte NO_ID = -1;
+
+	private static final int BALANCE = 0;
+	private static final int APR = 8;
+	private static final int AGE = 16;
+	static final int NEXT = 20;
+	private static final int PREVIOUS = 24;
+	private static final int TYPE = 28;
+	private static final int WITHDRAWN = 29;
+	private static final int ID_LENGTH = 30;
+	private static final int ID = 32;
+
+	static final int HEADER_LIMIT = 12;
+	static final int HEADER_FIRST = 16;
+	static final int HEADER_LAST = 20;
+	static final int HEADER_SIZE = 24;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer header;
+	private MappedByteBuffer[] segments;
+	private int[] freeSlots = new int[16];
+	private int freeCount;
+	private int first = NONE;
+	private int last = NONE;
+	private int limit;
+	private int size;
+
+	// Opens the store in file, creating an empty one if the file is empty or does
+	// not exist.
+	public MappedAccountStore(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		boolean empty = channel.size() == 0;
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		if (empty) {
+			header.putInt(0, MAGIC);
+			header.putInt(4, VERSION);
+			header.putInt(8, RECORD_BYTES);
+			writeHeader();
+			segments = new MappedByteBuffer[0];
+		} else {
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != RECORD_BYTES) {
+				channel.close();
+				throw new IOException("Not an account store: " + file);
+			}
+			limit = header.getInt(HEADER_LIMIT);
+			first = header.getInt(HEADER_FIRST);
+			int count = (int) ((channel.size() - HEADER_BYTES + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+			segments = new MappedByteBuffer[count];
+			for (int i = 0; i < count; i++) {
+				segments[i] = map(i);
+			}
+			limit = Math.min(limit, count * SEGMENT_RECORDS);
+			repair();
+		}
+	}
+
+	// Walks the list from first, setting each record's previous link on the way,
+	// ends it before a slot that is out of range, free or seen already, and frees
+	// every record the walk did not reach.
+	private void repair() {
+		boolean[] linked = new boolean[limit];
+		int before = NONE;
+		int slot = first;
+		size = 0;
+		while (slot >= 0 && slot < limit && !linked[slot] && typeByte(slot) != FREE) {
+			linked[slot] = true;
+			if (previous(slot) != before) {
+				setPrevious(slot, before);
+			}
+			before = slot;
+			size++;
+			slot = next(slot);
+		}
+		if (before == NONE) {
+			first = NONE;
+		} else if (slot != NONE) {
+			setNext(before, NONE);
+		}
+		last = before;
+		writeHeader();
+		for (slot = 0; slot < limit; slot++) {
+			if (!linked[slot]) {
+				if (typeByte(slot) != FREE) {
+					clear(slot);
+				}
+				pushFree(slot);
+			}
+		}
+	}
+
+	private MappedByteBuffer map(int segment) throws IOException {
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + segment * SEGMENT_BYTES,
+				SEGMENT_BYTES);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		return buffer;
+	}
+
+	private void writeHeader() {
+		header.putInt(HEADER_LIMIT, limit);
+		header.putInt(HEADER_FIRST, first);
+		header.putInt(HEADER_LAST, last);
+		header.putInt(HEADER_SIZE, size);
+	}
+
+	private MappedByteBuffer segment(int slot) {
+		return segments[slot >>> SEGMENT_SHIFT];
+	}
+
+	private static int offset(int slot) {
+		return (slot & SEGMENT_MASK) * RECORD_BYTES;
+	}
+
+	private byte typeByte(int slot) {
+		return segment(slot).get(offset(slot) + TYPE);
+	}
+
+	@Override
+	int allocate(String id, AccountType type, double balance, double apr, int age, boolean withdrawnThisMonth) {
+		byte[] encodedId = null;
+		if (id != null) {
+			encodedId = id.getBytes(StandardCharsets.UTF_8);
+			if (encodedId.length > MAX_ID_BYTES) {
+				throw new IllegalArgumentException("Id longer than " + MAX_ID_BYTES + " bytes: " + id);
+			}
+		}
+		int slot;
+		if (freeCount > 0) {
+			slot = freeSlots[--freeCount];
+		} else {
+			if (full()) {
+				grow();
+			}
+			slot = limit;
+			segment(slot).put(offset(slot) + TYPE, FREE);
+			VarHandle.storeStoreFence();
+			header.putInt(HEADER_LIMIT, ++limit);
+		}
+		MappedByteBuffer record = segment(slot);
+		int offset = offset(slot);
+		record.putDouble(offset + BALANCE, balance);
+		record.putDouble(offset + APR, apr);
+		record.putInt(offset + AGE, age);
+		record.put(offset + TYPE, (byte) type.ordinal());
+		record.put(offset + WITHDRAWN, withdrawnThisMonth ? (byte) 1 : 0);
+		if (encodedId == null) {
+			record.put(offset + ID_LENGTH, NO_ID);
+		} else {
+			record.put(offset + ID_LENGTH, (byte) encodedId.length);
+			record.put(offset + ID, encodedId);
+		}
+		link(slot);
+		size++;
+		writeHeader();
+		return slot;
+	}
+
+	@Override
+	boolean full() {
+		return freeCount == 0 && limit == segments.length * SEGMENT_RECORDS;
+	}
+
+	@Override
+	void grow() {
+		MappedByteBuffer[] grown = Arrays.copyOf(segments, segments.length + 1);
+		try {
+			grown[segments.length] = map(segments.length);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		segments = grown;
+	}
+
+	// The fence keeps the record's own writes ahead of the one that puts it on the
+	// list, even if the process dies between them.
+	private void link(int slot) {
+		setPrevious(slot, last);
+		setNext(slot, NONE);
+		VarHandle.storeStoreFence();
+		if (last == NONE) {
+			setFirst(slot);
+		} else {
+			setNext(last, slot);
+		}
+		last = slot;
+	}
+
+	private void unlink(int slot) {
+		int before = previous(slot);
+		int after = next(slot);
+		if (before == NONE) {
+			setFirst(after);
+		} else {
+			setNext(before, after);
+		}
+		if (after == NONE) {
+			last = before;
+		} else {
+			setPrevious(after, before);
+		}
+	}
+
+	private void setFirst(int slot) {
+		first = slot;
+		header.putInt(HEADER_FIRST, slot);
+	}
+
+	private int previous(int slot) {
+		return segment(slot).getInt(offset(slot) + PREVIOUS);
+	}
+
+	private void setPrevious(int slot, int previous) {
+		segment(slot).putInt(offset(slot) + PREVIOUS, previous);
+	}
+
+	private void setNext(int slot, int next) {
+		segment(slot).putInt(offset(slot) + NEXT, next);
+	}
+
+	@Override
+	void release(int slot) {
+		unlink(slot);
+		VarHandle.storeStoreFence();
+		clear(slot);
+		pushFree(slot);
+		size--;
+		writeHeader();
+	}
+
+	private void clear(int slot) {
+		MappedByteBuffer record = segment(slot);
+		int offset = offset(slot);
+		record.putDouble(offset + BALANCE, 0);
+		record.putDouble(offset + APR, 0);
+		record.putInt(offset + AGE, 0);
+		record.put(offset + TYPE, FREE);
+		record.put(offset + WITHDRAWN, (byte) 0);
+		record.put(offset + ID_LENGTH, NO_ID);
+	}
+
+	private void pushFree(int slot) {
+		if (freeCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+		}
+		freeSlots[freeCount++] = slot;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	int first() {
+		return first;
+	}
+
+	@Override
+	int next(int slot) {
+		return segment(slot).getInt(offset(slot) + NEXT);
+	}
+
+	@Override
+	String id(int slot) {
+		MappedByteBuffer record = segment(slot);
+		int offset = offset(slot);
+		int length = record.get(offset + ID_LENGTH);
+		if (length == NO_ID) {
+			return null;
+		}
+		byte[] id = new byte[length];
+		record.get(offset + ID, id);
+		return new String(id, StandardCharsets.UTF_8);
+	}
+
+	// Safe to call without the slot's lock, like HeapAccountStore.snapshot: a
+	// segment once mapped stays mapped, so a slot the segments reach can always be
+	// read.
+	@Override
+	AccountSnapshot snapshot(int slot) {
+		MappedByteBuffer[] segments = this.segments;
+		if (slot < 0 || slot >>> SEGMENT_SHIFT >= segments.length) {
+			return null;
+		}
+		MappedByteBuffer record = segments[slot >>> SEGMENT_SHIFT];
+		int offset = offset(slot);
+		byte type = record.get(offset + TYPE);
+		int length = record.get(offset + ID_LENGTH);
+		if (type < 0 || type >= TYPE_COUNT || length < 0 || length > MAX_ID_BYTES) {
+			return null;
+		}
+		byte[] id = new byte[length];
+		record.get(offset + ID, id);
+		return new AccountSnapshot(new String(id, StandardCharsets.UTF_8), AccountType.of(type),
+				record.getDouble(offset + BALANCE), record.getDouble(offset + APR), record.getInt(offset + AGE));
+	}
+
+	@Override
+	public AccountType type(int slot) {
+		return AccountType.of(typeByte(slot));
+	}
+
+	@Override
+	public double balance(int slot) {
+		return segment(slot).getDouble(offset(slot) + BALANCE);
+	}
+
+	private void setBalance(int slot, double balance) {
+		segment(slot).putDouble(offset(slot) + BALANCE, balance);
+	}
+
+	@Override
+	public double apr(int slot) {
+		return segment(slot).getDouble(offset(slot) + APR);
+	}
+
+	@Override
+	public int age(int slot) {
+		return segment(slot).getInt(offset(slot) + AGE);
+	}
+
+	@Override
+	public boolean withdrawn(int slot) {
+		return segment(slot).get(offset(slot) + WITHDRAWN) != 0;
+	}
+
+	private void setWithdrawn(int slot, boolean withdrawn) {
+		segment(slot).put(offset(slot) + WITHDRAWN, withdrawn ? (byte) 1 : 0);
+	}
+
+	@Override
+	void deposit(int slot, double amount) {
+		setBalance(slot, balance(slot) + amount);
+	}
+
+	@Override
+	void withdraw(int slot, double amount) {
+		byte type = typeByte(slot);
+		double remaining = remaining(type, balance(slot), amount);
+		setBalance(slot, remaining);
+		if (type == AccountType.SAVINGS.ordinal() && remaining == 0) {
+			setWithdrawn(slot, !withdrawn(slot));
+		}
+	}
+
+	@Override
+	void setAge(int slot, int age) {
+		if (typeByte(slot) == AccountType.SAVINGS.ordinal() && age > age(slot)) {
+			setWithdrawn(slot, false);
+		}
+		segment(slot).putInt(offset(slot) + AGE, age);
+	}
+
+	@Override
+	void compound(int slot, int months) {
+		segment(slot).putInt(offset(slot) + AGE, age(slot) + months);
+		double rate = InterestEngine.monthlyRate(apr(slot));
+		int periods = months * periodsPerMonth(typeByte(slot));
+		double balance = balance(slot);
+		for (int i = 0; i < periods; i++) {
+			balance += rate * balance;
+		}
+		setBalance(slot, balance);
+	}
+
+	@Override
+	int limit() {
+		return limit;
+	}
+
+	@Override
+	int[] passTime(int months, int from, int to) {
+		int[] closedSlots = new int[0];
+		int closedCount = 0;
+		for (int slot = from; slot < to; slot++) {
+			if (typeByte(slot) == FREE) {
+				continue;
+			}
+			if (balance(slot) == 0) {
+				if (closedCount == closedSlots.length) {
+					closedSlots = Arrays.copyOf(closedSlots, Math.max(8, closedCount * 2));
+				}
+				closedSlots[closedCount++] = slot;
+				continue;
+			}
+			if (balance(slot) < 100) {
+				withdraw(slot, 25);
+			}
+			segment(slot).putInt(offset(slot) + AGE, age(slot) + months);
+		}
+		compound(months, from, to);
+		return Arrays.copyOf(closedSlots, closedCount);
+	}
+
+	// HeapAccountStore's block compounding, with each block's balances copied out
+	// of the records and back, so every balance gets the same operations in the
+	// same order.
+	private void compound(int months, int from, int to) {
+		int block = InterestEngine.BLOCK;
+		double[] balances = new double[block];
+		double[] rates = new double[block];
+		double[] cdBalances = new double[block];
+		double[] cdRates = new double[block];
+		int[] cdSlots = new int[block];
+		int cdPeriods = months * (Account.CD_PERIODS_PER_MONTH - 1);
+		for (int start = from; start < to; start += block) {
+			int count = Math.min(block, to - start);
+			int cdCount = 0;
+			for (int i = 0; i < count; i++) {
+				int slot = start + i;
+				byte type = typeByte(slot);
+				balances[i] = balance(slot);
+				if (type == FREE) {
+					rates[i] = 0;
+				} else {
+					rates[i] = InterestEngine.monthlyRate(apr(slot));
+					if (type == AccountType.CD.ordinal()) {
+						cdSlots[cdCount++] = i;
+					}
+				}
+			}
+			InterestEngine.compound(balances, 0, rates, count, months);
+			if (cdCount > 0) {
+				for (int i = 0; i < cdCount; i++) {
+					cdBalances[i] = balances[cdSlots[i]];
+					cdRates[i] = rates[cdSlots[i]];
+				}
+				InterestEngine.compound(cdBalances, 0, cdRates, cdCount, cdPeriods);
+				for (int i = 0; i < cdCount; i++) {
+					balances[cdSlots[i]] = cdBalances[i];
+				}
+			}
+			for (int i = 0; i < count; i++) {
+				setBalance(start + i, balances[i]);
+			}
+		}
+	}
+
+	public void force() {
+		header.force();
+		for (MappedByteBuffer segment : segments) {
+			segment.force();
+		}
+	}
+
+	// The mappings stay readable until they are collected, but nothing should use
+	// the store after it is closed.
+	@Override
+	public void close() throws IOException {
+		try {
+			force();
+		} finally {
+			channel.close();
+		}
+	}
+}
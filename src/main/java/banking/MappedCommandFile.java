@@ -0,0 +1,145 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+public class MappedCommandFile {
+	static final int DEFAULT_WINDOW = 64 << 20;
+	private static final int MAX_WINDOW = Integer.MAX_VALUE - 8;
+
+	private MappedCommandFile() {
+	}
+
+	public static void forEachLine(Path file, Consumer<CharSequence> action) throws IOException {
+		forEachLine(file, DEFAULT_WINDOW, action);
+	}
+
+	// Lines end at \n, \r or \r\n, as with BufferedReader.readLine. ASCII lines are
+	// handed over as a reused view of the mapped bytes, valid only during the call;
+	// other lines are decoded as UTF-8.
+	//
+	// One window is mapped at a time, and nothing here refers to it once the next
+	// is mapped. The JDK has no call to unmap a buffer, so each window's mapping is
+	// only released when the garbage collector frees its buffer; until then it
+	// holds address space, though its pages are clean and the OS can reclaim them.
+	static void forEachLine(Path file, int window, Consumer<CharSequence> action) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long position = 0;
+			MappedLine line = new MappedLine();
+			while (position < size) {
+				int length = (int) Math.min(window, size - position);
+				boolean last = position + length == size;
+				int start = mapWindow(channel, position, length, last, line, action);
+				if (start == 0 && !last) {
+					if (window == MAX_WINDOW) {
+						throw new IOException("Command line longer than " + MAX_WINDOW + " bytes in " + file);
+					}
+					window = (int) Math.min((long) window * 2, MAX_WINDOW);
+				}
+				position += start;
+			}
+		}
+	}
+
+	// Hands over the whole lines in one window and returns where the first line it
+	// could not finish starts. The buffer is local to this call and line lets go of
+	// it before returning.
+	private static int mapWindow(FileChannel channel, long position, int length, boolean last, MappedLine line,
+			Consumer<CharSequence> action) throws IOException {
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+		try {
+			int start = 0;
+			boolean ascii = true;
+			for (int i = 0; i < length; i++) {
+				byte b = buffer.get(i);
+				if (b == '\n' || b == '\r') {
+					int end = i;
+					if (b == '\r') {
+						if (i + 1 < length) {
+							if (buffer.get(i + 1) == '\n') {
+								i++;
+							}
+						} else if (!last) {
+							break;
+						}
+					}
+					emit(buffer, start, end, ascii, line, action);
+					start = i + 1;
+					ascii = true;
+				} else if (b < 0) {
+					ascii = false;
+				}
+			}
+			if (last && start < length) {
+				emit(buffer, start, length, ascii, line, action);
+				start = length;
+			}
+			return start;
+		} finally {
+			line.set(null, 0, 0);
+		}
+	}
+
+	private static void emit(ByteBuffer buffer, int start, int end, boolean ascii, MappedLine line,
+			Consumer<CharSequence> action) {
+		if (ascii) {
+			action.accept(line.set(buffer, start, end - start));
+		} else {
+			byte[] bytes = new byte[end - start];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = buffer.get(start + i);
+			}
+			action.accept(new String(bytes, StandardCharsets.UTF_8));
+		}
+	}
+
+	static class MappedLine implements CharSequence {
+		private ByteBuffer buffer;
+		private int offset;
+		private int length;
+
+		MappedLine set(ByteBuffer buffer, int offset, int length) {
+			this.buffer = buffer;
+			this.offset = offset;
+			this.length = length;
+			return this;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length) {
+				throw new StringIndexOutOfBoundsException(index);
+			}
+			return (char) buffer.get(offset + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || end > length || start > end) {
+				throw new StringIndexOutOfBoundsException("begin " + start + ", end " + end + ", length " + length);
+			}
+			byte[] bytes = new byte[end - start];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = buffer.get(offset + start + i);
+			}
+			return new String(bytes, StandardCharsets.ISO_8859_1);
+		}
+
+		@Override
+		public String toString() {
+			return subSequence(0, length).toString();
+		}
+	}
+}
@@ -1,12 +1,25 @@
 package banking;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class MasterControl {
 	private Validator validator;
 
 	private CommandStorage commandStorage;
 	private CommandProcessor commandProcessor;
+	private CommandJournal journal;
+	private BankSnapshots snapshots;
+	private final ParsedCommand parsedCommand = new ParsedCommand();
 
 	public MasterControl(Validator validator, CommandProcessor commandProcessor, CommandStorage commandStorage) {
 		this.validator = validator;
@@ -14,16 +27,129 @@ public class MasterControl {
 		this.commandStorage = commandStorage;
 	}
 
-	public List<String> start(List<String> input) {
-		for (String command : input) {
-			if (validator.validate(command)) {
-				commandProcessor.processCommand(command);
-				commandStorage.storeValidCommand(command);
+	// Every command is journaled before it takes effect, and the journal is synced
+	// before any output is produced.
+	public MasterControl(Validator validator, CommandProcessor commandProcessor, CommandStorage commandStorage,
+			CommandJournal journal) {
+		this(validator, commandProcessor, commandStorage);
+		this.journal = journal;
+	}
+
+	// Also snapshots the bank and the history as commands go by. A snapshot names
+	// the journal position it was taken at, so the journal is required.
+	public MasterControl(Validator validator, CommandProcessor commandProcessor, CommandStorage commandStorage,
+			CommandJournal journal, BankSnapshots snapshots) {
+		this(validator, commandProcessor, commandStorage, journal);
+		if (journal == null) {
+			throw new IllegalArgumentException("Snapshots need a journal");
+		}
+		this.snapshots = snapshots;
+	}
 
+	// Brings the bank and the command history back to where the journal ends,
+	// without validating again: the journal only holds commands as they were
+	// judged the first time.
+	public void recover(Path journalFile) throws IOException {
+		replay(journalFile, 0);
+	}
+
+	// Loads the latest snapshot and replays only the journal after it, or the
+	// whole journal if there is no whole snapshot. The bank has to be empty.
+	public void recover(Path snapshotFile, Path journalFile) throws IOException {
+		replay(journalFile, BankSnapshots.restore(snapshotFile, commandStorage));
+	}
+
+	private void replay(Path journalFile, long from) throws IOException {
+		CommandJournal.replay(journalFile, from, (kind, command) -> {
+			if (kind == CommandJournal.VALID) {
+				parsedCommand.reset(command);
+				commandProcessor.processCommand(parsedCommand);
+				commandStorage.storeValidCommand(parsedCommand);
 			} else {
 				commandStorage.addInvalidCommand(command);
 			}
+		});
+	}
+
+	public List<String> start(List<String> input) {
+		List<String> output = new ArrayList<>();
+		start(input.iterator(), output::add);
+		return output;
+	}
+
+	public void start(Iterator<String> input, Consumer<String> output) {
+		while (input.hasNext()) {
+			process(input.next());
+		}
+		output(output);
+	}
+
+	public void start(Stream<String> input, Consumer<String> output) {
+		start(input.iterator(), output);
+	}
+
+	public void start(Reader input, Consumer<String> output) throws IOException {
+		BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+		String command;
+		while ((command = reader.readLine()) != null) {
+			process(command);
+		}
+		output(output);
+	}
+
+	public void start(Path commandFile, Consumer<String> output) throws IOException {
+		MappedCommandFile.forEachLine(commandFile, this::process);
+		output(output);
+	}
+
+	// Writes the output to a channel as CommandStorage.output(WritableByteChannel)
+	// does, for outputs too large to hold as Strings.
+	public void start(Path commandFile, WritableByteChannel output) throws IOException {
+		MappedCommandFile.forEachLine(commandFile, this::process);
+		syncJournal();
+		commandStorage.output(output);
+	}
+
+	// Takes a snapshot now rather than when the interval next comes round.
+	public void snapshot() {
+		if (snapshots == null) {
+			throw new IllegalStateException("No snapshots configured");
+		}
+		snapshots.take(commandStorage, journal);
+	}
+
+	private void output(Consumer<String> output) {
+		syncJournal();
+		commandStorage.output(output);
+	}
+
+	private void syncJournal() {
+		if (journal != null) {
+			try {
+				journal.sync();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	void process(CharSequence command) {
+		parsedCommand.reset(command);
+		if (validator.validate(parsedCommand)) {
+			if (journal != null) {
+				journal.append(CommandJournal.VALID, command);
+			}
+			commandProcessor.processCommand(parsedCommand);
+			commandStorage.storeValidCommand(parsedCommand);
+
+		} else {
+			if (journal != null) {
+				journal.append(CommandJournal.INVALID, command);
+			}
+			commandStorage.addInvalidCommand(command.toString());
+		}
+		if (snapshots != null) {
+			snapshots.processed(commandStorage, journal);
 		}
-		return commandStorage.output();
 	}
 }
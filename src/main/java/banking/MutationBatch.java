@@ -0,0 +1,85 @@
+package banking;
+
+import java.util.Arrays;
+
+// Already validated deposits, withdrawals and transfers, applied together by
+// Bank.applyBatch.
+public class MutationBatch {
+	static final byte DEPOSIT = 0;
+	static final byte WITHDRAW = 1;
+	static final byte TRANSFER = 2;
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private byte[] kinds;
+	private String[] ids;
+	private String[] targetIds;
+	private double[] amounts;
+	private int size;
+
+	public MutationBatch() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public MutationBatch(int capacity) {
+		kinds = new byte[Math.max(1, capacity)];
+		ids = new String[kinds.length];
+		targetIds = new String[kinds.length];
+		amounts = new double[kinds.length];
+	}
+
+	public MutationBatch deposit(String id, double amount) {
+		add(DEPOSIT, id, null, amount);
+		return this;
+	}
+
+	public MutationBatch withdraw(String id, double amount) {
+		add(WITHDRAW, id, null, amount);
+		return this;
+	}
+
+	public MutationBatch transfer(String transferFrom, String transferTo, double amount) {
+		add(TRANSFER, transferFrom, transferTo, amount);
+		return this;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(ids, 0, size, null);
+		Arrays.fill(targetIds, 0, size, null);
+		size = 0;
+	}
+
+	private void add(byte kind, String id, String targetId, double amount) {
+		if (size == kinds.length) {
+			int capacity = size * 2;
+			kinds = Arrays.copyOf(kinds, capacity);
+			ids = Arrays.copyOf(ids, capacity);
+			targetIds = Arrays.copyOf(targetIds, capacity);
+			amounts = Arrays.copyOf(amounts, capacity);
+		}
+		kinds[size] = kind;
+		ids[size] = id;
+		targetIds[size] = targetId;
+		amounts[size] = amount;
+		size++;
+	}
+
+	byte kind(int index) {
+		return kinds[index];
+	}
+
+	String id(int index) {
+		return ids[index];
+	}
+
+	String targetId(int index) {
+		return targetIds[index];
+	}
+
+	double amount(int index) {
+		return amounts[index];
+	}
+}
@@ -0,0 +1,238 @@
+package banking;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import banking.ParsedCommand.Operation;
+
+// Runs commands in batches with the same output as MasterControl. Every command
+// in a batch is first validated in parallel against the bank as it was before the
+// batch; then the batch is committed in order on one thread. A command whose
+// accounts were changed by an earlier command of the same batch is validated
+// again at that point, so each command is judged against the same state as in
+// the sequential run. A pass changes every account, so everything after it in
+// the batch is validated again.
+public class OptimisticMasterControl {
+	private static final int BATCH_SIZE = 4096;
+
+	private final int threads;
+	private final Validator validator;
+	private final CommandProcessor commandProcessor;
+	private final CommandStorage commandStorage;
+	private final Validator[] workerValidators;
+	private final ParsedCommand[] commands = new ParsedCommand[BATCH_SIZE];
+	private final String[] lines = new String[BATCH_SIZE];
+	private final boolean[] valid = new boolean[BATCH_SIZE];
+	private final Throwable[] failures = new Throwable[BATCH_SIZE];
+	private final Set<String> changed = new HashSet<>();
+	private ExecutorService executor;
+	private int size;
+
+	public OptimisticMasterControl(Bank bank, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Thread count must be positive: " + threads);
+		}
+		this.threads = threads;
+		this.validator = new Validator(bank);
+		this.commandProcessor = new CommandProcessor(bank);
+		this.commandStorage = new CommandStorage(bank);
+		this.workerValidators = new Validator[threads];
+		for (int i = 0; i < threads; i++) {
+			workerValidators[i] = new Validator(bank);
+		}
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			commands[i] = new ParsedCommand();
+		}
+	}
+
+	public OptimisticMasterControl(Bank bank) {
+		this(bank, Runtime.getRuntime().availableProcessors());
+	}
+
+	public List<String> start(List<String> input) {
+		List<String> output = new ArrayList<>();
+		start(input.iterator(), output::add);
+		return output;
+	}
+
+	public void start(Iterator<String> input, Consumer<String> output) {
+		open();
+		try {
+			while (input.hasNext()) {
+				add(input.next());
+			}
+			commit();
+		} finally {
+			close();
+		}
+		commandStorage.output(output);
+	}
+
+	public void start(Stream<String> input, Consumer<String> output) {
+		start(input.iterator(), output);
+	}
+
+	public void start(Reader input, Consumer<String> output) throws IOException {
+		BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+		open();
+		try {
+			String command;
+			while ((command = reader.readLine()) != null) {
+				add(command);
+			}
+			commit();
+		} finally {
+			close();
+		}
+		commandStorage.output(output);
+	}
+
+	public void start(Path commandFile, Consumer<String> output) throws IOException {
+		open();
+		try {
+			MappedCommandFile.forEachLine(commandFile, this::add);
+			commit();
+		} finally {
+			close();
+		}
+		commandStorage.output(output);
+	}
+
+	private void open() {
+		size = 0;
+		if (threads > 1) {
+			executor = Executors.newFixedThreadPool(threads);
+		}
+	}
+
+	private void close() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+	void add(CharSequence line) {
+		lines[size] = line.toString();
+		commands[size].reset(lines[size]);
+		size++;
+		if (size == BATCH_SIZE) {
+			commit();
+		}
+	}
+
+	private void commit() {
+		validateAll();
+		changed.clear();
+		boolean passed = false;
+		for (int i = 0; i < size; i++) {
+			ParsedCommand command = commands[i];
+			boolean commandValid;
+			if (passed || touchesChanged(command)) {
+				commandValid = validator.validate(command);
+			} else if (failures[i] != null) {
+				rethrow(failures[i]);
+				return;
+			} else {
+				commandValid = valid[i];
+			}
+			if (commandValid) {
+				commandProcessor.processCommand(command);
+				commandStorage.storeValidCommand(command);
+				if (command.operation() == Operation.PASS) {
+					passed = true;
+				} else {
+					changed.add(command.id());
+					if (command.operation() == Operation.TRANSFER) {
+						changed.add(command.targetId());
+					}
+				}
+			} else {
+				commandStorage.addInvalidCommand(lines[i]);
+			}
+		}
+		size = 0;
+	}
+
+	// The ids the validator looks up for this command; nothing else about the bank
+	// can change its outcome.
+	private boolean touchesChanged(ParsedCommand command) {
+		Operation operation = command.operation();
+		int count = command.tokens().count();
+		if (operation == null || operation == Operation.PASS || changed.isEmpty()) {
+			return false;
+		} else if (operation == Operation.CREATE) {
+			return count >= 3 && changed.contains(command.id());
+		} else if (operation == Operation.TRANSFER && count >= 3) {
+			return changed.contains(command.id()) || changed.contains(command.targetId());
+		}
+		return count >= 2 && changed.contains(command.id());
+	}
+
+	// Nothing writes to the bank while the batch is validated, so the workers read
+	// it without locks. A command that throws is remembered and rethrown at its
+	// turn if it is not validated again by then.
+	private void validateAll() {
+		if (executor == null || size < threads * 2) {
+			validate(workerValidators[0], 0, size);
+			return;
+		}
+		List<Callable<Void>> tasks = new ArrayList<>(threads);
+		int chunk = (size + threads - 1) / threads;
+		for (int i = 0; i < threads; i++) {
+			Validator worker = workerValidators[i];
+			int from = Math.min(size, i * chunk);
+			int to = Math.min(size, from + chunk);
+			tasks.add(() -> {
+				validate(worker, from, to);
+				return null;
+			});
+		}
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while validating commands", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Validation failed", e.getCause());
+		}
+	}
+
+	private void validate(Validator worker, int from, int to) {
+		for (int i = from; i < to; i++) {
+			failures[i] = null;
+			try {
+				valid[i] = worker.validate(commands[i]);
+			} catch (RuntimeException | Error e) {
+				valid[i] = false;
+				failures[i] = e;
+			}
+		}
+	}
+
+	private static void rethrow(Throwable failure) {
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		throw new IllegalStateException(failure);
+	}
+}
@@ -0,0 +1,137 @@
+package banking;
+
+public class ParsedCommand {
+
+	public enum Operation {
+		CREATE("create"), DEPOSIT("deposit"), WITHDRAW("withdraw"), TRANSFER("transfer"), PASS("pass");
+
+		private final String keyword;
+
+		Operation(String keyword) {
+			this.keyword = keyword;
+		}
+
+		static Operation of(CommandTokenizer tokens) {
+			if (tokens.count() == 0) {
+				return null;
+			}
+			Operation operation = candidate(tokens);
+			if (operation != null && tokens.is(0, operation.keyword)) {
+				return operation;
+			}
+			return null;
+		}
+
+		private static Operation candidate(CommandTokenizer tokens) {
+			switch (tokens.length(0)) {
+			case 4:
+				return PASS;
+			case 6:
+				return CREATE;
+			case 7:
+				return DEPOSIT;
+			case 8:
+				return Character.toLowerCase(tokens.charAt(0, 0)) == 't' ? TRANSFER : WITHDRAW;
+			default:
+				return null;
+			}
+		}
+	}
+
+	private final CommandTokenizer tokens = new CommandTokenizer();
+	private Operation operation;
+	private AccountType accountType;
+	private String id;
+	private String targetId;
+	private double amount;
+	private double apr;
+	private int months;
+	private boolean amountParsed;
+	private boolean aprParsed;
+	private boolean monthsParsed;
+
+	ParsedCommand() {
+	}
+
+	ParsedCommand(CharSequence line) {
+		reset(line);
+	}
+
+	public ParsedCommand reset(CharSequence line) {
+		tokens.reset(line);
+		operation = Operation.of(tokens);
+		accountType = null;
+		id = null;
+		targetId = null;
+		amountParsed = false;
+		aprParsed = false;
+		monthsParsed = false;
+		return this;
+	}
+
+	CommandTokenizer tokens() {
+		return tokens;
+	}
+
+	public String line() {
+		return tokens.line().toString();
+	}
+
+	public Operation operation() {
+		return operation;
+	}
+
+	public AccountType accountType() {
+		if (accountType == null) {
+			accountType = AccountType.of(tokens, 1);
+		}
+		return accountType;
+	}
+
+	public String id() {
+		if (id == null) {
+			id = tokens.token(operation == Operation.CREATE ? 2 : 1);
+		}
+		return id;
+	}
+
+	public String targetId() {
+		if (targetId == null) {
+			targetId = tokens.token(2);
+		}
+		return targetId;
+	}
+
+	public double amount() {
+		if (!amountParsed) {
+			amount = tokens.parseDouble(amountIndex());
+			amountParsed = true;
+		}
+		return amount;
+	}
+
+	private int amountIndex() {
+		if (operation == Operation.CREATE) {
+			return 4;
+		} else if (operation == Operation.TRANSFER) {
+			return 3;
+		}
+		return 2;
+	}
+
+	public double apr() {
+		if (!aprParsed) {
+			apr = tokens.parseDouble(3);
+			aprParsed = true;
+		}
+		return apr;
+	}
+
+	public int months() {
+		if (!monthsParsed) {
+			months = tokens.parseInt(1);
+			monthsParsed = true;
+		}
+		return months;
+	}
+}
@@ -8,8 +8,11 @@ public class PassTimeProcessor {
 	}
 
 	public void pass(String command) {
-		String arr[] = command.split(" ");
-		int time = Integer.parseInt(arr[1]);
+		pass(new ParsedCommand(command));
+	}
+
+	void pass(ParsedCommand command) {
+		int time = command.months();
 		bank.passTime(time);
 
 	}
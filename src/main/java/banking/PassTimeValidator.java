@@ -1,5 +1,7 @@
 package banking;
 
+import banking.ParsedCommand.Operation;
+
 public class PassTimeValidator {
 	Bank bank;
 
@@ -8,8 +10,11 @@ public class PassTimeValidator {
 	}
 
 	public boolean command_arguments_are_right(String s) {
-		String arr[] = s.split(" ");
-		if (arr.length != 2) {
+		return command_arguments_are_right(new ParsedCommand(s));
+	}
+
+	boolean command_arguments_are_right(ParsedCommand command) {
+		if (command.tokens().count() != 2) {
 			return false;
 		} else {
 			return true;
@@ -17,17 +22,19 @@ public class PassTimeValidator {
 	}
 
 	public boolean passValid(String s) {
-		String arr[] = s.split(" ");
-		if (arr[0].equalsIgnoreCase("Pass")) {
-			return true;
-		} else {
-			return false;
-		}
+		return passValid(new ParsedCommand(s));
+	}
+
+	boolean passValid(ParsedCommand command) {
+		return command.operation() == Operation.PASS;
 	}
 
 	public boolean monthsValid(String s) {
-		String arr[] = s.split(" ");
-		int months = Integer.parseInt(arr[1]);
+		return monthsValid(new ParsedCommand(s));
+	}
+
+	boolean monthsValid(ParsedCommand command) {
+		int months = command.months();
 		if (months < 1 || months > 60) {
 			return false;
 		} else {
@@ -36,8 +43,11 @@ public class PassTimeValidator {
 	}
 
 	public boolean validate(String s) {
-		String arr[] = s.split(" ");
-		if (monthsValid(s) && passValid(s) && command_arguments_are_right(s)) {
+		return validate(new ParsedCommand(s));
+	}
+
+	boolean validate(ParsedCommand command) {
+		if (monthsValid(command) && passValid(command) && command_arguments_are_right(command)) {
 			return true;
 		} else {
 			return false;
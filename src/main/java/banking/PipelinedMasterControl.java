@@ -0,0 +1,294 @@
+package banking;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import banking.ParsedCommand.Operation;
+
+// Runs MasterControl's steps as a pipeline over a ring of reusable slots, with
+// the same output. The thread calling start tokenizes each line into the next
+// free slot; a second thread validates and applies the commands in order and is
+// the only one that touches the bank; a third records each outcome in
+// CommandStorage. Validation stays on the applying thread because whether a
+// command is valid depends on every command before it.
+public class PipelinedMasterControl {
+	private static final int RING_SIZE = 1 << 12;
+	private static final int MASK = RING_SIZE - 1;
+	private static final int SPINS = 128;
+	private static final int YIELDS = 128;
+	private static final long PARK_NANOS = 20_000;
+	private static final byte VALID = 1;
+	private static final byte INVALID = 2;
+	private static final byte SKIPPED = 3;
+
+	private final Validator validator;
+	private final CommandProcessor commandProcessor;
+	private final CommandStorage commandStorage;
+	private final Slot[] ring = new Slot[RING_SIZE];
+	private final Sequence parsed = new Sequence();
+	private final Sequence applied = new Sequence();
+	private final Sequence recorded = new Sequence();
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+	private volatile long end;
+	private ExecutorService executor;
+	private List<Future<?>> running;
+	private long cursor;
+	private long recordedCache;
+
+	public PipelinedMasterControl(Validator validator, CommandProcessor commandProcessor,
+			CommandStorage commandStorage) {
+		this.validator = validator;
+		this.commandProcessor = commandProcessor;
+		this.commandStorage = commandStorage;
+		for (int i = 0; i < RING_SIZE; i++) {
+			ring[i] = new Slot();
+		}
+	}
+
+	public List<String> start(List<String> input) {
+		List<String> output = new ArrayList<>();
+		start(input.iterator(), output::add);
+		return output;
+	}
+
+	public void start(Iterator<String> input, Consumer<String> output) {
+		open();
+		try {
+			while (failure.get() == null && input.hasNext()) {
+				publish(input.next());
+			}
+		} finally {
+			close();
+		}
+		commandStorage.output(output);
+	}
+
+	public void start(Stream<String> input, Consumer<String> output) {
+		start(input.iterator(), output);
+	}
+
+	public void start(Reader input, Consumer<String> output) throws IOException {
+		BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+		open();
+		try {
+			String command;
+			while (failure.get() == null && (command = reader.readLine()) != null) {
+				publish(command);
+			}
+		} finally {
+			close();
+		}
+		commandStorage.output(output);
+	}
+
+	public void start(Path commandFile, Consumer<String> output) throws IOException {
+		open();
+		try {
+			MappedCommandFile.forEachLine(commandFile, this::publish);
+		} finally {
+			close();
+		}
+		commandStorage.output(output);
+	}
+
+	private void open() {
+		end = Long.MAX_VALUE;
+		failure.set(null);
+		executor = Executors.newFixedThreadPool(2);
+		running = new ArrayList<>();
+		running.add(executor.submit(this::applyStage));
+		running.add(executor.submit(this::recordStage));
+	}
+
+	// Lets both stages drain everything published so far, then rethrows the first
+	// failure, which is where the sequential run would have stopped.
+	private void close() {
+		end = cursor;
+		try {
+			for (Future<?> future : running) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the pipeline", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Pipeline stage failed", e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+		Throwable first = failure.get();
+		if (first == null) {
+			return;
+		}
+		if (first instanceof RuntimeException) {
+			throw (RuntimeException) first;
+		}
+		if (first instanceof Error) {
+			throw (Error) first;
+		}
+		throw new IllegalStateException(first);
+	}
+
+	void publish(CharSequence line) {
+		if (failure.get() != null) {
+			return;
+		}
+		if (cursor - recordedCache >= RING_SIZE) {
+			recordedCache = recorded.get();
+			int attempt = 0;
+			while (cursor - recordedCache >= RING_SIZE) {
+				idle(attempt++);
+				recordedCache = recorded.get();
+			}
+		}
+		ring[(int) cursor & MASK].parse(line);
+		cursor++;
+		parsed.set(cursor);
+	}
+
+	private void applyStage() {
+		long next = applied.get();
+		while (true) {
+			long available = waitFor(next, parsed);
+			if (available == next) {
+				return;
+			}
+			for (; next < available; next++) {
+				Slot slot = ring[(int) next & MASK];
+				slot.outcome = apply(slot.command);
+			}
+			applied.set(next);
+		}
+	}
+
+	private byte apply(ParsedCommand command) {
+		if (failure.get() != null) {
+			return SKIPPED;
+		}
+		try {
+			if (validator.validate(command)) {
+				commandProcessor.processCommand(command);
+				return VALID;
+			}
+			return INVALID;
+		} catch (RuntimeException | Error e) {
+			failure.compareAndSet(null, e);
+			return SKIPPED;
+		}
+	}
+
+	private void recordStage() {
+		long next = recorded.get();
+		while (true) {
+			long available = waitFor(next, applied);
+			if (available == next) {
+				return;
+			}
+			for (; next < available; next++) {
+				record(ring[(int) next & MASK]);
+			}
+			recorded.set(next);
+		}
+	}
+
+	private void record(Slot slot) {
+		try {
+			if (slot.outcome == VALID) {
+				commandStorage.storeValidCommand(slot.command);
+			} else if (slot.outcome == INVALID) {
+				commandStorage.addInvalidCommand(slot.line);
+			}
+		} catch (RuntimeException | Error e) {
+			failure.compareAndSet(null, e);
+		}
+	}
+
+	// How far a stage at position may go: as far as the stage before it has got,
+	// or nowhere once position is the end of the input.
+	private long waitFor(long position, Sequence upstream) {
+		int attempt = 0;
+		while (true) {
+			long available = upstream.get();
+			if (available > position || end == position) {
+				return Math.max(available, position);
+			}
+			idle(attempt++);
+		}
+	}
+
+	// A stage that has caught up spins briefly, then yields, then parks, so it
+	// reacts quickly under load without burning a core while the input is slow.
+	private static void idle(int attempt) {
+		if (attempt < SPINS) {
+			Thread.onSpinWait();
+		} else if (attempt < SPINS + YIELDS) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(PARK_NANOS);
+		}
+	}
+
+	private static class Slot {
+		final ParsedCommand command = new ParsedCommand();
+		String line;
+		byte outcome;
+
+		// The ids are cut out here, so the applying stage finds them ready.
+		void parse(CharSequence text) {
+			line = text.toString();
+			command.reset(line);
+			Operation operation = command.operation();
+			int count = command.tokens().count();
+			if (operation == Operation.CREATE && count >= 3) {
+				command.id();
+			} else if (operation != null && operation != Operation.PASS && operation != Operation.CREATE
+					&& count >= 2) {
+				command.id();
+				if (operation == Operation.TRANSFER && count >= 3) {
+					command.targetId();
+				}
+			}
+		}
+	}
+
+	// A stage's progress: the number of slots it has finished. Padded so the three
+	// counters, each written by a different thread, sit on different cache lines.
+	private static class Sequence {
+		private static final VarHandle VALUE;
+
+		static {
+			try {
+				VALUE = MethodHandles.lookup().findVarHandle(Sequence.class, "value", long.class);
+			} catch (ReflectiveOperationException e) {
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+
+		long p1, p2, p3, p4, p5, p6, p7;
+		private long value;
+		long q1, q2, q3, q4, q5, q6, q7;
+
+		long get() {
+			return (long) VALUE.getAcquire(this);
+		}
+
+		void set(long next) {
+			VALUE.setRelease(this, next);
+		}
+	}
+}
@@ -1,49 +1,18 @@
 package banking;
 
 public class Savings extends Account {
-	double amount;
-	double apr;
-	int time;
-	boolean status = false;
 
 	Savings(Double amount, double apr) {
-		super(0, apr);
-		super.accountType = "Savings";
+		super(AccountType.SAVINGS, 0, apr);
 
 	}
 
-	void changeWithdrawalStatus() {
-		this.status = !(this.status);
-
+	Savings(AccountStore store, int slot) {
+		super(store, slot);
 	}
 
 	boolean getWithdrawalStatus() {
-		return this.status;
-	}
-
-	@Override
-	public void setTime(int time) {
-		if (time > super.time) {
-			status = false;
-		}
-		super.time = time;
-	}
-
-	@Override
-	public void depositIn(String id, double amount) {
-		super.amount = super.amount + amount;
-
-	}
-
-	@Override
-	public void withdrawFrom(String id, double amount) {
-		super.amount = super.amount - amount;
-		if (super.amount <= 0.00) {
-			super.amount = 0;
-			changeWithdrawalStatus();
-
-		}
-
+		return store().withdrawn(slot());
 	}
 
 }
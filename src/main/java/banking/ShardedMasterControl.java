@@ -0,0 +1,422 @@
+package banking;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import banking.ParsedCommand.Operation;
+
+// Runs commands on several shards at once, with the same output as
+// MasterControl. A command goes to the shard that owns the account it names,
+// so each account sees its commands in input order. Commands that can be judged
+// without looking at any account go to any shard. A transfer between two shards
+// and a pass are joint commands: every shard involved stops at them, and the
+// lowest numbered one runs the command while the others wait.
+public class ShardedMasterControl {
+	private static final int BATCH_SIZE = 256;
+	private static final int QUEUE_CAPACITY = 64;
+
+	private final int shardCount;
+	private final ConcurrentBank bank = new ConcurrentBank();
+	private final ParsedCommand routing = new ParsedCommand();
+	private Shard[] shards;
+	private Batch[] pending;
+	private ExecutorService executor;
+	private List<Future<?>> running;
+	private long sequence;
+
+	public ShardedMasterControl(int shardCount) {
+		if (shardCount < 1) {
+			throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+		}
+		this.shardCount = shardCount;
+	}
+
+	public ShardedMasterControl() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public List<String> start(List<String> input) {
+		List<String> output = new ArrayList<>();
+		start(input.iterator(), output::add);
+		return output;
+	}
+
+	public void start(Iterator<String> input, Consumer<String> output) {
+		open();
+		try {
+			while (input.hasNext()) {
+				dispatch(input.next());
+			}
+		} finally {
+			close();
+		}
+		output(output);
+	}
+
+	public void start(Stream<String> input, Consumer<String> output) {
+		start(input.iterator(), output);
+	}
+
+	public void start(Reader input, Consumer<String> output) throws IOException {
+		BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+		open();
+		try {
+			String command;
+			while ((command = reader.readLine()) != null) {
+				dispatch(command);
+			}
+		} finally {
+			close();
+		}
+		output(output);
+	}
+
+	public void start(Path commandFile, Consumer<String> output) throws IOException {
+		open();
+		try {
+			MappedCommandFile.forEachLine(commandFile, this::dispatch);
+		} finally {
+			close();
+		}
+		output(output);
+	}
+
+	private void open() {
+		if (shards != null) {
+			throw new IllegalStateException("ShardedMasterControl has already been started");
+		}
+		shards = new Shard[shardCount];
+		pending = new Batch[shardCount];
+		executor = Executors.newFixedThreadPool(shardCount);
+		running = new ArrayList<>();
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new Shard(i);
+			pending[i] = new Batch();
+			running.add(executor.submit(shards[i]::run));
+		}
+	}
+
+	void dispatch(CharSequence command) {
+		long seq = sequence++;
+		String line = command.toString();
+		routing.reset(line);
+		CommandTokenizer tokens = routing.tokens();
+		Operation operation = routing.operation();
+		int shard = (int) (seq % shardCount);
+		if (operation == Operation.PASS && tokens.count() == 2) {
+			Joint joint = new Joint(shardCount);
+			for (int i = 0; i < shardCount; i++) {
+				add(i, seq, line, joint);
+			}
+			flushAll();
+			return;
+		} else if (operation == Operation.TRANSFER && tokens.count() >= 4) {
+			int from = shardOf(tokens, 1);
+			int to = shardOf(tokens, 2);
+			if (from != to) {
+				Joint joint = new Joint(2);
+				add(from, seq, line, joint);
+				add(to, seq, line, joint);
+				flush(from);
+				flush(to);
+				return;
+			}
+			shard = from;
+		} else if (operation == Operation.CREATE && tokens.count() >= 3) {
+			shard = shardOf(tokens, 2);
+		} else if (operation != null && operation != Operation.CREATE && operation != Operation.PASS
+				&& tokens.count() >= 2) {
+			shard = shardOf(tokens, 1);
+		}
+		add(shard, seq, line, null);
+	}
+
+	// Same value as token.hashCode(), spread and reduced to a shard number.
+	private int shardOf(CommandTokenizer tokens, int index) {
+		int hash = 0;
+		for (int i = 0; i < tokens.length(index); i++) {
+			hash = 31 * hash + tokens.charAt(index, i);
+		}
+		hash *= 0x9E3779B9;
+		return (int) ((hash & 0xFFFFFFFFL) % shardCount);
+	}
+
+	private void add(int shard, long seq, String line, Joint joint) {
+		Batch batch = pending[shard];
+		batch.add(seq, line, joint);
+		if (batch.size == BATCH_SIZE) {
+			flush(shard);
+		}
+	}
+
+	private void flush(int shard) {
+		if (pending[shard].size > 0) {
+			shards[shard].queue(pending[shard]);
+			pending[shard] = new Batch();
+		}
+	}
+
+	private void flushAll() {
+		for (int i = 0; i < shardCount; i++) {
+			flush(i);
+		}
+	}
+
+	private void close() {
+		flushAll();
+		for (Shard shard : shards) {
+			shard.queue(Batch.LAST);
+		}
+		try {
+			for (Future<?> future : running) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for shards", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Shard failed", e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+		rethrowFirstFailure();
+	}
+
+	// A command that throws stops MasterControl.start. The failure with the lowest
+	// sequence number is the one the sequential run would have hit first; every
+	// command before it ran exactly as it would have there.
+	private void rethrowFirstFailure() {
+		Shard first = null;
+		for (Shard shard : shards) {
+			if (shard.failure != null && (first == null || shard.failureSeq < first.failureSeq)) {
+				first = shard;
+			}
+		}
+		if (first == null) {
+			return;
+		}
+		if (first.failure instanceof RuntimeException) {
+			throw (RuntimeException) first.failure;
+		}
+		if (first.failure instanceof Error) {
+			throw (Error) first.failure;
+		}
+		throw new IllegalStateException(first.failure);
+	}
+
+	private void output(Consumer<String> output) {
+		List<Entry> accounts = new ArrayList<>();
+		List<Entry> invalid = new ArrayList<>();
+		for (Shard shard : shards) {
+			shard.collectAccounts(accounts);
+			invalid.addAll(shard.invalid);
+		}
+		accounts.sort(null);
+		invalid.sort(null);
+		for (Entry account : accounts) {
+			shards[account.shard].storage.output(account.line, output);
+		}
+		for (Entry command : invalid) {
+			output.accept(command.line);
+		}
+	}
+
+	private static class Entry implements Comparable<Entry> {
+		final long seq;
+		final String line;
+		final int shard;
+
+		Entry(long seq, String line, int shard) {
+			this.seq = seq;
+			this.line = line;
+			this.shard = shard;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			return Long.compare(seq, other.seq);
+		}
+	}
+
+	private static class Batch {
+		static final Batch LAST = new Batch();
+
+		long[] seqs = new long[BATCH_SIZE];
+		String[] lines = new String[BATCH_SIZE];
+		Joint[] joints = new Joint[BATCH_SIZE];
+		int size;
+
+		void add(long seq, String line, Joint joint) {
+			seqs[size] = seq;
+			lines[size] = line;
+			joints[size] = joint;
+			size++;
+		}
+	}
+
+	private static class Joint {
+		final CountDownLatch arrived;
+		final CountDownLatch done = new CountDownLatch(1);
+		boolean valid;
+
+		Joint(int participants) {
+			arrived = new CountDownLatch(participants - 1);
+		}
+	}
+
+	private class Shard {
+		final int index;
+		final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		final Validator validator = new Validator(bank);
+		final CommandProcessor processor = new CommandProcessor(bank);
+		final CommandStorage storage = new CommandStorage(bank);
+		final ParsedCommand command = new ParsedCommand();
+		final List<Entry> invalid = new ArrayList<>();
+		final List<String> created = new ArrayList<>();
+		long[] createdSeqs = new long[BATCH_SIZE];
+		Throwable failure;
+		long failureSeq;
+
+		Shard(int index) {
+			this.index = index;
+		}
+
+		void queue(Batch batch) {
+			try {
+				queue.put(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while dispatching commands", e);
+			}
+		}
+
+		void run() {
+			try {
+				while (true) {
+					Batch batch = queue.take();
+					if (batch == Batch.LAST) {
+						return;
+					}
+					for (int i = 0; i < batch.size; i++) {
+						if (batch.joints[i] == null) {
+							execute(batch.seqs[i], batch.lines[i]);
+						} else {
+							join(batch.seqs[i], batch.lines[i], batch.joints[i]);
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void execute(long seq, String line) {
+			if (failure != null) {
+				return;
+			}
+			try {
+				command.reset(line);
+				if (validator.validate(command)) {
+					processor.processCommand(command);
+					storage.storeValidCommand(command);
+					if (command.operation() == Operation.CREATE) {
+						created(seq, command.id());
+					}
+				} else {
+					invalid.add(new Entry(seq, line, index));
+				}
+			} catch (RuntimeException | Error e) {
+				fail(seq, e);
+			}
+		}
+
+		// The first shard to find a joint command in its batch is not necessarily
+		// the leader; the leader waits for everyone else, runs it, and then lets
+		// the others record it in their own histories.
+		private void join(long seq, String line, Joint joint) throws InterruptedException {
+			command.reset(line);
+			boolean leader = leaderOf(joint);
+			if (leader) {
+				joint.arrived.await();
+				try {
+					if (failure == null) {
+						joint.valid = validator.validate(command);
+						if (joint.valid) {
+							processor.processCommand(command);
+						} else {
+							invalid.add(new Entry(seq, line, index));
+						}
+					}
+				} catch (RuntimeException | Error e) {
+					fail(seq, e);
+				} finally {
+					joint.done.countDown();
+				}
+			} else {
+				joint.arrived.countDown();
+				joint.done.await();
+			}
+			if (joint.valid && command.operation() == Operation.TRANSFER) {
+				storeOwnHistory(command, line);
+			}
+		}
+
+		private boolean leaderOf(Joint joint) {
+			if (command.operation() == Operation.PASS) {
+				return index == 0;
+			}
+			return index == Math.min(shardOf(command.tokens(), 1), shardOf(command.tokens(), 2));
+		}
+
+		private void storeOwnHistory(ParsedCommand command, String line) {
+			if (shardOf(command.tokens(), 1) == index) {
+				storage.storeValidCommand(command.id(), line);
+			}
+			if (shardOf(command.tokens(), 2) == index) {
+				storage.storeValidCommand(command.targetId(), line);
+			}
+		}
+
+		private void created(long seq, String id) {
+			if (created.size() == createdSeqs.length) {
+				createdSeqs = Arrays.copyOf(createdSeqs, createdSeqs.length * 2);
+			}
+			createdSeqs[created.size()] = seq;
+			created.add(id);
+		}
+
+		private void fail(long seq, Throwable e) {
+			failure = e;
+			failureSeq = seq;
+		}
+
+		// Accounts this shard created that are still open, each at the position of
+		// its latest create, which is where the sequential run lists it.
+		void collectAccounts(List<Entry> accounts) {
+			Set<String> seen = new HashSet<>();
+			for (int i = created.size() - 1; i >= 0; i--) {
+				String id = created.get(i);
+				if (seen.add(id) && bank.containsKey(id)) {
+					accounts.add(new Entry(createdSeqs[i], id, index));
+				}
+			}
+		}
+	}
+}
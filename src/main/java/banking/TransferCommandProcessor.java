@@ -8,10 +8,13 @@ public class TransferCommandProcessor {
 	}
 
 	public void transfer(String command) {
-		String arr[] = command.split(" ");
-		String transferFrom = arr[1];
-		String transferTo = arr[2];
-		Double amount = Double.parseDouble(arr[3]);
+		transfer(new ParsedCommand(command));
+	}
+
+	void transfer(ParsedCommand command) {
+		String transferFrom = command.id();
+		String transferTo = command.targetId();
+		double amount = command.amount();
 		bank.transfer(transferFrom, transferTo, amount);
 
 	}
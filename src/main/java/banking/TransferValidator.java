@@ -1,29 +1,40 @@
 package banking;
 
+import banking.ParsedCommand.Operation;
+
 public class TransferValidator {
 	Bank bank;
-	Validator validator;
+	DepositValidator depositValidator;
+	WithdrawValidator withdrawValidator;
 
 	TransferValidator(Bank bank) {
-		this.bank = bank;
-		validator = new Validator(bank);
+		this(bank, new DepositValidator(bank), new WithdrawValidator(bank));
+
+	}
 
+	TransferValidator(Bank bank, DepositValidator depositValidator, WithdrawValidator withdrawValidator) {
+		this.bank = bank;
+		this.depositValidator = depositValidator;
+		this.withdrawValidator = withdrawValidator;
 	}
 
 	public boolean commandArguments(String s) {
-		String arr[] = s.split(" ");
-		if (arr.length != 4) {
+		return commandArguments(new ParsedCommand(s));
+	}
+
+	boolean commandArguments(ParsedCommand command) {
+		if (command.tokens().count() != 4) {
 			return false;
 		}
 		return true;
 	}
 
 	public boolean transferValid(String s) {
-		String arr[] = s.split(" ");
-		if (arr[0].equalsIgnoreCase("transfer")) {
-			return true;
-		}
-		return false;
+		return transferValid(new ParsedCommand(s));
+	}
+
+	boolean transferValid(ParsedCommand command) {
+		return command.operation() == Operation.TRANSFER;
 
 	}
 
@@ -37,15 +48,20 @@ public class TransferValidator {
 	}
 
 	public boolean firstIdValid(String s) {
-		String arr[] = s.split(" ");
+		return firstIdValid(new ParsedCommand(s));
+	}
+
+	boolean firstIdValid(ParsedCommand command) {
+		String id = command.id();
+		AccountType type = bank.getType(id);
 
-		if ((bank.getId(arr[1]) instanceof Savings) || (bank.getId(arr[1]) instanceof Checking)) {
-			if (arr[1].length() == 8 && accountExists(arr[1])) {
+		if (type == AccountType.SAVINGS || type == AccountType.CHECKING) {
+			if (command.id().length() == 8 && accountExists(id)) {
 				return true;
 			}
 			return false;
 
-		} else if (bank.getId(arr[1]) instanceof CD) {
+		} else if (type == AccountType.CD) {
 			return false;
 		}
 		return false;
@@ -53,31 +69,46 @@ public class TransferValidator {
 	}
 
 	public boolean secondIdValid(String s) {
-		String arr[] = s.split(" ");
+		return secondIdValid(new ParsedCommand(s));
+	}
+
+	boolean secondIdValid(ParsedCommand command) {
+		String id = command.targetId();
+		AccountType type = bank.getType(id);
 
-		if ((bank.getId(arr[2]) instanceof Savings) || (bank.getId(arr[2]) instanceof Checking)) {
-			if (arr[1].length() == 8 && accountExists(arr[2])) {
+		if (type == AccountType.SAVINGS || type == AccountType.CHECKING) {
+			if (command.id().length() == 8 && accountExists(id)) {
 				return true;
 			} else {
 				return false;
 			}
 
-		} else if (bank.getId(arr[2]) instanceof CD) {
+		} else if (type == AccountType.CD) {
 			return false;
 		}
 		return false;
 	}
 
 	public boolean amountIsValid(String s) {
-		String arr[] = s.split(" ");
-		String deposit = "deposit " + arr[2] + " " + arr[3];
-		String withdraw = "withdraw " + arr[1] + " " + arr[3];
-		return (validator.validate(deposit) && validator.validate(withdraw));
+		return amountIsValid(new ParsedCommand(s));
+	}
+
+	boolean amountIsValid(ParsedCommand command) {
+		if (command.tokens().length(3) == 0) {
+			return false;
+		}
+		return depositValidator.validate(command.targetId(), 2, command)
+				&& withdrawValidator.validate(command.id(), command);
 
 	}
 
 	public boolean validate(String s) {
-		if (amountIsValid(s) && firstIdValid(s) && secondIdValid(s) && transferValid(s) & commandArguments(s)) {
+		return validate(new ParsedCommand(s));
+	}
+
+	boolean validate(ParsedCommand command) {
+		if (amountIsValid(command) && firstIdValid(command) && secondIdValid(command) && transferValid(command)
+				& commandArguments(command)) {
 			return true;
 		}
 		return false;
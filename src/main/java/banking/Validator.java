@@ -1,37 +1,37 @@
 package banking;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import banking.ParsedCommand.Operation;
+
 public class Validator {
 	Bank bank;
+	private final ParsedCommand command = new ParsedCommand();
+	private final Map<Operation, Predicate<ParsedCommand>> validators = new EnumMap<>(Operation.class);
 
 	Validator(Bank bank) {
 		this.bank = bank;
+		DepositValidator depositValidator = new DepositValidator(bank);
+		WithdrawValidator withdrawValidator = new WithdrawValidator(bank);
+		validators.put(Operation.CREATE, new CreateValidator(bank)::validate);
+		validators.put(Operation.DEPOSIT, depositValidator::validate);
+		validators.put(Operation.WITHDRAW, withdrawValidator::validate);
+		validators.put(Operation.TRANSFER, new TransferValidator(bank, depositValidator, withdrawValidator)::validate);
+		validators.put(Operation.PASS, new PassTimeValidator(bank)::validate);
 
 	}
 
 	boolean validate(String s) {
-		String arr[] = s.split(" ");
-
-		if (arr[0].equalsIgnoreCase("create")) {
-			CreateValidator validator = new CreateValidator(bank);
-			return validator.validate(s);
-		} else if (arr[0].equalsIgnoreCase("deposit")) {
-			DepositValidator validator = new DepositValidator(bank);
-			return validator.validate(s);
-		} else if (arr[0].equalsIgnoreCase("withdraw")) {
-			WithdrawValidator validator = new WithdrawValidator(bank);
-			return validator.validate(s);
-		} else if (arr[0].equalsIgnoreCase("transfer")) {
-			TransferValidator validator = new TransferValidator(bank);
-			return validator.validate(s);
-		} else if (arr[0].equalsIgnoreCase("pass")) {
-			PassTimeValidator validator = new PassTimeValidator((bank));
-			return validator.validate(s);
-
-		}
+		return validate(command.reset(s));
+	}
 
-		else {
+	boolean validate(ParsedCommand command) {
+		if (command.operation() == null) {
 			return false;
 		}
+		return validators.get(command.operation()).test(command);
 
 	}
 }
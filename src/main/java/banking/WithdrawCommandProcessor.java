@@ -8,10 +8,13 @@ public class WithdrawCommandProcessor {
 	}
 
 	public void withdraw(String command) {
-		String arr[] = command.split(" ");
-		String id = arr[1];
-		double amount = Double.parseDouble(arr[2]);
-		((Account) bank.getId(id)).withdrawFrom(id, amount);
+		withdraw(new ParsedCommand(command));
+	}
+
+	void withdraw(ParsedCommand command) {
+		String id = command.id();
+		double amount = command.amount();
+		bank.withdrawFrom(id, amount);
 
 	}
 }
@@ -1,5 +1,7 @@
 package banking;
 
+import banking.ParsedCommand.Operation;
+
 public class WithdrawValidator {
 	private final Bank bank;
 
@@ -8,8 +10,11 @@ public class WithdrawValidator {
 	}
 
 	public boolean commandArguments(String s) {
-		String arr[] = s.split(" ");
-		if (arr.length != 3) {
+		return commandArguments(new ParsedCommand(s));
+	}
+
+	boolean commandArguments(ParsedCommand command) {
+		if (command.tokens().count() != 3) {
 			return false;
 		} else {
 			return true;
@@ -17,12 +22,11 @@ public class WithdrawValidator {
 	}
 
 	public boolean withdrawValid(String s) {
-		String arr[] = s.split(" ");
-		if (arr[0].equalsIgnoreCase("withdraw")) {
-			return true;
-		} else {
-			return false;
-		}
+		return withdrawValid(new ParsedCommand(s));
+	}
+
+	boolean withdrawValid(ParsedCommand command) {
+		return command.operation() == Operation.WITHDRAW;
 	}
 
 	public boolean accountExists(String s) {
@@ -36,9 +40,19 @@ public class WithdrawValidator {
 	}
 
 	public Boolean withdrawIdValid(String s) {
-		String arr[] = s.split(" ");
-		if (commandArguments(s) && accountExists(arr[1])) {
-			if (arr[1].length() == 8) {
+		return withdrawIdValid(new ParsedCommand(s));
+	}
+
+	boolean withdrawIdValid(ParsedCommand command) {
+		if (commandArguments(command)) {
+			return idValid(command.id());
+		}
+		return false;
+	}
+
+	boolean idValid(String id) {
+		if (accountExists(id)) {
+			if (id.length() == 8) {
 				return true;
 
 			} else {
@@ -49,44 +63,58 @@ public class WithdrawValidator {
 	}
 
 	public boolean withdrawAmountValid(String s) {
-		String arr[] = s.split(" ");
-		double amount = Double.parseDouble(arr[2]);
-		if (withdrawIdValid(s)) {
-			Account account = (Account) bank.getId(arr[1]);
-			if (account instanceof Savings) {
-				if (amount >= 0 && amount <= 1000) {
-					return true;
-				} else {
-					return false;
-				}
-
-			} else if (account instanceof Checking) {
-				if (amount >= 0 && amount <= 400) {
-					return true;
-				} else {
-					return false;
-				}
-
-			} else if (account instanceof CD) {
-				if (amount >= account.amount) {
-					return true;
-				}
+		return withdrawAmountValid(new ParsedCommand(s));
+	}
+
+	boolean withdrawAmountValid(ParsedCommand command) {
+		double amount = command.amount();
+		if (withdrawIdValid(command)) {
+			return amountValid(command.id(), amount);
+		}
+		return false;
+	}
+
+	boolean amountValid(String id, double amount) {
+		AccountType type = bank.getType(id);
+		if (type == AccountType.SAVINGS) {
+			if (amount >= 0 && amount <= 1000) {
+				return true;
+			} else {
+				return false;
+			}
+
+		} else if (type == AccountType.CHECKING) {
+			if (amount >= 0 && amount <= 400) {
+				return true;
+			} else {
 				return false;
+			}
 
+		} else if (type == AccountType.CD) {
+			if (amount >= bank.getAmount(id)) {
+				return true;
 			}
+			return false;
 
 		}
 		return false;
 	}
 
 	public boolean withdrawTimeValid(String s) {
-		String arr[] = s.split(" ");
-		Account account = (Account) bank.getId(arr[1]);
-		int age = account.time;
-		if (account instanceof Savings) {
-			return !((Savings) account).getWithdrawalStatus();
-		} else if (account instanceof CD) {
-			if (account.time >= 12 && (account.time % 12 == 0)) {
+		return withdrawTimeValid(new ParsedCommand(s));
+	}
+
+	boolean withdrawTimeValid(ParsedCommand command) {
+		return timeValid(command.id());
+	}
+
+	boolean timeValid(String id) {
+		AccountType type = bank.getType(id);
+		if (type == AccountType.SAVINGS) {
+			return !bank.getWithdrawalStatus(id);
+		} else if (type == AccountType.CD) {
+			int time = bank.getTime(id);
+			if (time >= 12 && (time % 12 == 0)) {
 				return true;
 			}
 			return false;
@@ -96,10 +124,21 @@ public class WithdrawValidator {
 	}
 
 	public boolean validate(String s) {
-		if (withdrawValid(s) && withdrawIdValid(s) && withdrawAmountValid(s) && withdrawTimeValid(s)
-				&& commandArguments(s)) {
+		return validate(new ParsedCommand(s));
+	}
+
+	boolean validate(ParsedCommand command) {
+		if (withdrawValid(command) && withdrawIdValid(command) && withdrawAmountValid(command)
+				&& withdrawTimeValid(command) && commandArguments(command)) {
 			return true;
 		}
 		return false;
 	}
+
+	boolean validate(String id, ParsedCommand command) {
+		if (idValid(id)) {
+			return amountValid(id, command.amount()) && timeValid(id);
+		}
+		return false;
+	}
 }
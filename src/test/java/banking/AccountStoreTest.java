@@ -0,0 +1,163 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AccountStoreTest {
+	public static final String ID = "12345678";
+	public static final String SECOND_ID = "12345679";
+	public static final String THIRD_ID = "12345670";
+	AccountStore accounts;
+
+	@BeforeEach
+	void setUp() {
+		accounts = newStore(1);
+	}
+
+	AccountStore newStore(int capacity) {
+		return new HeapAccountStore(capacity);
+	}
+
+	@Test
+	void allocated_account_has_given_values() {
+		int slot = accounts.allocate(ID, AccountType.CD, 2000, 2.1, 0, false);
+		assertEquals(ID, accounts.id(slot));
+		assertEquals(AccountType.CD, accounts.type(slot));
+		assertEquals(2000, accounts.balance(slot));
+		assertEquals(2.1, accounts.apr(slot));
+		assertEquals(0, accounts.age(slot));
+		assertEquals(1, accounts.size());
+	}
+
+	@Test
+	void store_grows_past_initial_capacity() {
+		for (int i = 0; i < 100; i++) {
+			int slot = accounts.allocate("" + (10000000 + i), AccountType.CHECKING, i, 1, 0, false);
+			assertEquals(i, slot);
+		}
+		assertEquals(100, accounts.size());
+		assertEquals(99, accounts.balance(99));
+	}
+
+	@Test
+	void released_slot_is_reused() {
+		accounts.allocate(ID, AccountType.CHECKING, 0, 1, 0, false);
+		int slot = accounts.allocate(SECOND_ID, AccountType.SAVINGS, 0, 1, 0, false);
+		accounts.release(slot);
+		assertEquals(1, accounts.size());
+		assertEquals(slot, accounts.allocate(THIRD_ID, AccountType.CD, 1000, 1, 0, false));
+		assertEquals(THIRD_ID, accounts.id(slot));
+		assertEquals(1000, accounts.balance(slot));
+	}
+
+	@Test
+	void accounts_are_iterated_in_creation_order_after_removal_and_reuse() {
+		int first = accounts.allocate(ID, AccountType.CHECKING, 0, 1, 0, false);
+		int second = accounts.allocate(SECOND_ID, AccountType.SAVINGS, 0, 1, 0, false);
+		accounts.allocate(THIRD_ID, AccountType.CD, 1000, 1, 0, false);
+		accounts.release(first);
+		accounts.release(second);
+		accounts.allocate("12345671", AccountType.CHECKING, 0, 1, 0, false);
+		List<String> ids = new ArrayList<>();
+		for (int slot = accounts.first(); slot != AccountStore.NONE; slot = accounts.next(slot)) {
+			ids.add(accounts.id(slot));
+		}
+		assertEquals(List.of(THIRD_ID, "12345671"), ids);
+	}
+
+	@Test
+	void savings_withdrawal_to_zero_changes_withdrawal_status() {
+		int slot = accounts.allocate(ID, AccountType.SAVINGS, 0, 1, 0, false);
+		accounts.deposit(slot, 100);
+		accounts.withdraw(slot, 150);
+		assertEquals(0, accounts.balance(slot));
+		assertTrue(accounts.withdrawn(slot));
+		accounts.setAge(slot, 1);
+		assertFalse(accounts.withdrawn(slot));
+	}
+
+	@Test
+	void cd_withdrawal_below_balance_is_ignored() {
+		int slot = accounts.allocate(ID, AccountType.CD, 1000, 1, 0, false);
+		accounts.withdraw(slot, 500);
+		assertEquals(1000, accounts.balance(slot));
+		accounts.withdraw(slot, 1500);
+		assertEquals(0, accounts.balance(slot));
+	}
+
+	@Test
+	void pass_time_closes_empty_accounts_and_frees_their_slots() {
+		int empty = accounts.allocate(ID, AccountType.CHECKING, 0, 1, 0, false);
+		int low = accounts.allocate(SECOND_ID, AccountType.SAVINGS, 50, 0, 0, false);
+		List<String> closed = new ArrayList<>();
+
+		accounts.passTime(2, closed::add);
+
+		assertEquals(List.of(ID), closed);
+		assertEquals(1, accounts.size());
+		assertEquals(25, accounts.balance(low));
+		assertEquals(2, accounts.age(low));
+		assertEquals(empty, accounts.allocate(THIRD_ID, AccountType.CHECKING, 0, 1, 0, false));
+	}
+
+	@Test
+	void pass_time_compounds_each_slot_like_single_account_compounding() {
+		AccountStore expected = newStore(16);
+		for (int i = 0; i < 1500; i++) {
+			AccountType type = AccountType.of(i % 3);
+			double apr = (i % 101) / 10.0;
+			double balance = 100 + i * 7.5;
+			accounts.allocate("" + (10000000 + i), type, balance, apr, 0, false);
+			expected.allocate("" + (10000000 + i), type, balance, apr, 0, false);
+		}
+		accounts.release(700);
+		expected.release(700);
+
+		accounts.passTime(13, id -> {
+		});
+
+		for (int i = 0; i < 1500; i++) {
+			if (i != 700) {
+				expected.compound(i, 13);
+				assertEquals(expected.balance(i), accounts.balance(i));
+				assertEquals(13, accounts.age(i));
+			}
+		}
+	}
+
+	@Test
+	void parallel_pass_time_gives_same_result_as_sequential() {
+		AccountStore parallel = newStore(16);
+		AccountStore sequential = newStore(16);
+		Random random = new Random(5);
+		int count = 100000;
+		for (int i = 0; i < count; i++) {
+			AccountType type = AccountType.of(random.nextInt(3));
+			double apr = random.nextInt(101) / 10.0;
+			double balance = random.nextInt(4) == 0 ? 0 : random.nextInt(300000) / 100.0;
+			parallel.allocate("" + (10000000 + i), type, balance, apr, 0, false);
+			sequential.allocate("" + (10000000 + i), type, balance, apr, 0, false);
+		}
+		List<String> parallelClosed = new ArrayList<>();
+		List<String> sequentialClosed = new ArrayList<>();
+
+		parallel.passTimeParallel(7, parallelClosed::add);
+		sequential.passTime(7, sequentialClosed::add);
+
+		assertEquals(sequentialClosed, parallelClosed);
+		assertEquals(sequential.size(), parallel.size());
+		for (int slot = sequential.first(); slot != AccountStore.NONE; slot = sequential.next(slot)) {
+			assertEquals(sequential.balance(slot), parallel.balance(slot));
+			assertEquals(sequential.age(slot), parallel.age(slot));
+			assertEquals(sequential.withdrawn(slot), parallel.withdrawn(slot));
+		}
+	}
+}
@@ -1,6 +1,12 @@
 package banking;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,9 +39,9 @@ public class AccountTest {
 
 	@Test
 	void apr_is_same_as_provided_value() {
-		assertEquals(APR, savings.APR);
-		assertEquals(APR, checking.APR);
-		assertEquals(APR, savings.APR);
+		assertEquals(APR, savings.getAPR(ID2));
+		assertEquals(APR, checking.getAPR(ID3));
+		assertEquals(APR, cd.getAPR(ID));
 
 	}
 
@@ -104,4 +110,81 @@ public class AccountTest {
 		assertEquals(0, checking.getAmount(ID3));
 		assertEquals(0, cd.getAmount(ID));
 	}
+
+	private static void runOnThreads(int threads, Runnable task) throws InterruptedException {
+		List<Thread> started = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			Thread thread = new Thread(task);
+			thread.start();
+			started.add(thread);
+		}
+		for (Thread thread : started) {
+			thread.join();
+		}
+	}
+
+	@Test
+	void lock_free_account_keeps_every_concurrent_deposit() throws InterruptedException {
+		Account account = new Checking(0.0, APR).lockFree();
+		runOnThreads(8, () -> {
+			for (int i = 0; i < 10000; i++) {
+				account.depositIn(ID, 1);
+			}
+		});
+		assertEquals(80000, account.getAmount(ID));
+	}
+
+	@Test
+	void lock_free_checking_withdrawals_stop_at_zero() throws InterruptedException {
+		Account account = new Checking(0.0, APR).lockFree();
+		account.depositIn(ID, 1000);
+		runOnThreads(8, () -> {
+			for (int i = 0; i < 1000; i++) {
+				account.depositIn(ID, 1);
+				account.withdrawFrom(ID, 2);
+			}
+		});
+		assertEquals(0, account.getAmount(ID));
+	}
+
+	@Test
+	void lock_free_savings_flips_flag_once_per_emptying_withdrawal() throws InterruptedException {
+		Savings account = (Savings) new Savings(0.0, APR).lockFree();
+		account.depositIn(ID, 1000);
+		runOnThreads(8, () -> {
+			account.withdrawFrom(ID, 100);
+			account.withdrawFrom(ID, 100);
+		});
+		assertEquals(0, account.getAmount(ID));
+		assertTrue(account.getWithdrawalStatus());
+		account.withdrawFrom(ID, 100);
+		assertFalse(account.getWithdrawalStatus());
+	}
+
+	@Test
+	void lock_free_account_keeps_its_state() {
+		Account account = new CD(AMOUNT, APR).lockFree();
+		account.withdrawFrom(ID, SUM);
+		assertEquals(AMOUNT, account.getAmount(ID));
+		assertEquals(APR, account.getAPR(ID));
+		assertEquals("Cd", account.getAccountType());
+	}
+
+	@Test
+	void lock_free_mode_follows_the_account_into_the_bank() throws InterruptedException {
+		Bank payroll = new Bank();
+		payroll.create(ID, new Checking(0.0, APR).lockFree());
+		runOnThreads(8, () -> {
+			for (int i = 0; i < 10000; i++) {
+				payroll.depositIn(ID, 1);
+			}
+		});
+		assertEquals(80000, payroll.getAmount(ID));
+	}
+
+	@Test
+	void account_in_a_bank_cannot_be_made_lock_free_through_its_handle() {
+		assertThrows(IllegalStateException.class, () -> bank.getId(ID).lockFree());
+		assertThrows(IllegalStateException.class, () -> checking.lockFree());
+	}
 }
@@ -0,0 +1,148 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BankSnapshotsTest {
+	private static final List<String> INPUT = Arrays.asList("create checking 12345678 1.0",
+			"deposit 12345678 700", "create savings 12345679 0.6", "deposit 12345679 500", "withdraw 12345679 100",
+			"withdraw 12345679 100", "create cd 12345680 2.1 1000", "create checking 12345681 0.1",
+			"deposit 12345681 50", "withdraw 12345681 50", "transfer 12345678 12345679 100", "pass 1",
+			"deposit 99999999 100", "create checking 12345681 0.3", "withdraw 12345679 30", "pass 2",
+			"deposit 12345678 20", "transfer 12345679 12345678 1000");
+
+	@TempDir
+	Path folder;
+
+	private List<String> recover(Path snapshot, Path journal) throws IOException {
+		Bank bank = new Bank();
+		MasterControl recovered = new MasterControl(new Validator(bank), new CommandProcessor(bank),
+				new CommandStorage(bank));
+		recovered.recover(snapshot, journal);
+		return recovered.start(new ArrayList<>());
+	}
+
+	private int records(Path journal, long from) throws IOException {
+		int[] count = new int[1];
+		CommandJournal.replay(journal, from, (kind, command) -> count[0]++);
+		return count[0];
+	}
+
+	@Test
+	void snapshot_restores_accounts_history_and_invalid_commands() throws IOException {
+		Bank bank = new Bank();
+		CommandStorage storage = new CommandStorage(bank);
+		List<String> expected = new MasterControl(new Validator(bank), new CommandProcessor(bank), storage)
+				.start(INPUT);
+		Path file = folder.resolve("snapshot");
+		BankSnapshots.write(file, BankSnapshots.capture(storage, 42).image());
+
+		Bank restored = new Bank();
+		CommandStorage restoredStorage = new CommandStorage(restored);
+		assertEquals(42, BankSnapshots.restore(file, restoredStorage));
+		assertEquals(expected, restoredStorage.output());
+		for (String id : bank.getAccountNumber()) {
+			assertEquals(bank.getTime(id), restored.getTime(id));
+			assertEquals(bank.getWithdrawalStatus(id), restored.getWithdrawalStatus(id));
+		}
+	}
+
+	@Test
+	void image_holds_what_was_there_at_capture_even_if_commands_follow() throws IOException {
+		Bank bank = new Bank();
+		CommandStorage storage = new CommandStorage(bank);
+		MasterControl masterControl = new MasterControl(new Validator(bank), new CommandProcessor(bank), storage);
+		List<String> expected = masterControl.start(INPUT.subList(0, 12));
+		BankSnapshots.Capture capture = BankSnapshots.capture(storage, 42);
+		masterControl.start(INPUT.subList(12, INPUT.size()));
+		Path file = folder.resolve("snapshot");
+		BankSnapshots.write(file, capture.image());
+
+		CommandStorage restoredStorage = new CommandStorage(new Bank());
+		BankSnapshots.restore(file, restoredStorage);
+		assertEquals(expected, restoredStorage.output());
+	}
+
+	@Test
+	void recovery_loads_the_snapshot_and_replays_only_the_journal_after_it() throws IOException {
+		Path journalFile = folder.resolve("journal");
+		Path snapshotFile = folder.resolve("snapshot");
+		List<String> expected;
+		try (CommandJournal journal = new CommandJournal(journalFile);
+				BankSnapshots snapshots = new BankSnapshots(snapshotFile, 1000)) {
+			Bank bank = new Bank();
+			MasterControl masterControl = new MasterControl(new Validator(bank), new CommandProcessor(bank),
+					new CommandStorage(bank), journal, snapshots);
+			for (String command : INPUT.subList(0, 12)) {
+				masterControl.process(command);
+			}
+			masterControl.snapshot();
+			expected = masterControl.start(INPUT.subList(12, INPUT.size()));
+		}
+		long position = BankSnapshots.restore(snapshotFile, new CommandStorage(new Bank()));
+		assertEquals(INPUT.size() - 12, records(journalFile, position));
+		assertEquals(expected, recover(snapshotFile, journalFile));
+	}
+
+	@Test
+	void snapshots_are_taken_every_interval_commands() throws IOException {
+		Path journalFile = folder.resolve("journal");
+		Path snapshotFile = folder.resolve("snapshot");
+		List<String> expected;
+		try (CommandJournal journal = new CommandJournal(journalFile);
+				BankSnapshots snapshots = new BankSnapshots(snapshotFile, 5)) {
+			Bank bank = new Bank();
+			expected = new MasterControl(new Validator(bank), new CommandProcessor(bank), new CommandStorage(bank),
+					journal, snapshots).start(INPUT);
+		}
+		assertTrue(Files.exists(snapshotFile));
+		long position = BankSnapshots.restore(snapshotFile, new CommandStorage(new Bank()));
+		assertTrue(records(journalFile, position) < INPUT.size());
+		assertEquals(expected, recover(snapshotFile, journalFile));
+	}
+
+	@Test
+	void damaged_snapshot_is_ignored_and_the_whole_journal_replayed() throws IOException {
+		Path journalFile = folder.resolve("journal");
+		Path snapshotFile = folder.resolve("snapshot");
+		List<String> expected;
+		try (CommandJournal journal = new CommandJournal(journalFile);
+				BankSnapshots snapshots = new BankSnapshots(snapshotFile, 1000)) {
+			Bank bank = new Bank();
+			MasterControl masterControl = new MasterControl(new Validator(bank), new CommandProcessor(bank),
+					new CommandStorage(bank), journal, snapshots);
+			for (String command : INPUT.subList(0, 12)) {
+				masterControl.process(command);
+			}
+			masterControl.snapshot();
+			expected = masterControl.start(INPUT.subList(12, INPUT.size()));
+		}
+		byte[] image = Files.readAllBytes(snapshotFile);
+		image[image.length / 2] ^= 1;
+		Files.write(snapshotFile, image);
+		assertEquals(0, BankSnapshots.restore(snapshotFile, new CommandStorage(new Bank())));
+		assertEquals(expected, recover(snapshotFile, journalFile));
+	}
+
+	@Test
+	void missing_snapshot_replays_the_whole_journal() throws IOException {
+		Path journalFile = folder.resolve("journal");
+		List<String> expected;
+		try (CommandJournal journal = new CommandJournal(journalFile)) {
+			Bank bank = new Bank();
+			expected = new MasterControl(new Validator(bank), new CommandProcessor(bank), new CommandStorage(bank),
+					journal).start(INPUT);
+		}
+		assertEquals(expected, recover(folder.resolve("snapshot"), journalFile));
+	}
+}
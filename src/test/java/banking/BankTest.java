@@ -1,6 +1,12 @@
 package banking;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -82,4 +88,73 @@ public class BankTest {
 		assertEquals(80, account.getAmount(ID));
 
 	}
+
+	@Test
+	void query_returns_account_state() {
+		bank.create(ID, AccountType.SAVINGS, 0, APR);
+		bank.depositIn(ID, AMOUNT);
+		bank.passTime(2);
+		AccountSnapshot snapshot = bank.query(ID);
+		assertEquals(ID, snapshot.getId());
+		assertEquals(AccountType.SAVINGS, snapshot.getType());
+		assertEquals(bank.getAmount(ID), snapshot.getAmount());
+		assertEquals(APR, snapshot.getAPR());
+		assertEquals(2, snapshot.getTime());
+	}
+
+	@Test
+	void query_of_many_ids_keeps_their_order() {
+		bank.create(ID, account);
+		bank.create(SECOND_ID, savings);
+		List<AccountSnapshot> snapshots = bank.query(Arrays.asList(SECOND_ID, "99999999", ID));
+		assertEquals(SECOND_ID, snapshots.get(0).getId());
+		assertNull(snapshots.get(1));
+		assertEquals(ID, snapshots.get(2).getId());
+	}
+
+	@Test
+	void batch_has_same_result_as_one_command_at_a_time() {
+		Bank oneByOne = new Bank();
+		String[] ids = { "10000000", "10000001", "10000002", "10000003" };
+		for (String id : ids) {
+			bank.create(id, AccountType.SAVINGS, 0, APR);
+			oneByOne.create(id, AccountType.SAVINGS, 0, APR);
+		}
+		bank.create("10000004", AccountType.CHECKING, 0, APR);
+		oneByOne.create("10000004", AccountType.CHECKING, 0, APR);
+		Random random = new Random(1);
+		MutationBatch batch = new MutationBatch();
+		for (int i = 0; i < 1000; i++) {
+			String id = ids[random.nextInt(ids.length)];
+			String other = random.nextBoolean() ? "10000004" : ids[random.nextInt(ids.length)];
+			double amount = random.nextInt(600);
+			switch (random.nextInt(3)) {
+			case 0:
+				batch.deposit(id, amount);
+				oneByOne.depositIn(id, amount);
+				break;
+			case 1:
+				batch.withdraw(other, amount);
+				oneByOne.withdrawFrom(other, amount);
+				break;
+			default:
+				batch.transfer(id, other, amount);
+				oneByOne.transfer(id, other, amount);
+				break;
+			}
+		}
+		bank.applyBatch(batch);
+		for (String id : oneByOne.getAccountNumber()) {
+			assertEquals(oneByOne.getAmount(id), bank.getAmount(id));
+			assertEquals(oneByOne.getWithdrawalStatus(id), bank.getWithdrawalStatus(id));
+		}
+	}
+
+	@Test
+	void batch_naming_an_unknown_account_changes_nothing() {
+		bank.create(ID, account);
+		MutationBatch batch = new MutationBatch().deposit(ID, AMOUNT).transfer(ID, SECOND_ID, SUM);
+		assertThrows(IllegalArgumentException.class, () -> bank.applyBatch(batch));
+		assertEquals(0, bank.getAmount(ID));
+	}
 }
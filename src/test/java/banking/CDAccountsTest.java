@@ -23,7 +23,7 @@ public class CDAccountsTest {
 
 	@Test
 	void amount_is_same_as_provided() {
-		assertEquals(AMOUNT, cd.amount);
+		assertEquals(AMOUNT, cd.getAmount(ID));
 	}
 
 	@Test
@@ -23,7 +23,7 @@ public class CheckingTest {
 
 	@Test
 	void default_amount_is_zero() {
-		assertEquals(0, checking.amount);
+		assertEquals(0, checking.getAmount(ID));
 	}
 
 }
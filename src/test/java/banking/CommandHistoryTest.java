@@ -0,0 +1,89 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CommandHistoryTest {
+	public static final String ID = "12345678";
+	public static final String OTHER_ID = "00000042";
+
+	private List<String> roundTrip(String owner, List<String> lines) {
+		return roundTrip(owner, lines, 0);
+	}
+
+	private List<String> roundTrip(String owner, List<String> lines, int rawLines) {
+		CommandHistory history = new CommandHistory();
+		for (String line : lines) {
+			history.add(owner, line);
+		}
+		List<String> rendered = new ArrayList<>();
+		history.forEach(owner, rendered::add);
+		assertEquals(lines.size(), history.size());
+		assertEquals(rawLines, history.rawLines());
+		return rendered;
+	}
+
+	@Test
+	void deposits_and_withdrawals_come_back_as_written() {
+		List<String> lines = Arrays.asList("deposit 12345678 100", "DePoSiT 12345678 100.50",
+				"withdraw 12345678 0007", "WITHDRAW 12345678 .5", "deposit 12345678 100.",
+				"deposit 12345678 123456789012345678", "withdraw 12345678 0.00000000000000001");
+		assertEquals(lines, roundTrip(ID, lines));
+	}
+
+	@Test
+	void transfers_come_back_as_written_on_both_sides() {
+		List<String> lines = Arrays.asList("transfer 12345678 00000042 300", "TRANSFER 00000042 12345678 25.25",
+				"transfer 12345678 12345678 1");
+		assertEquals(lines, roundTrip(ID, lines));
+		assertEquals(lines.subList(0, 2), roundTrip(OTHER_ID, lines.subList(0, 2)));
+	}
+
+	@Test
+	void lines_that_cannot_be_packed_are_kept_as_text() {
+		List<String> lines = Arrays.asList("deposit 12345678 1234567890123456789", "deposit  12345678 100",
+				"deposit 12345678 100 ", "deposit 12345678 1e3", "deposit 12345678 -5", "deposit 12345678 1.2.3",
+				"w\u0131thdraw 12345678 100", "depo\u017fit 12345678 100", "transfer 12345678 1234567 5",
+				"transfer 12345678 0000004x 5", "deposit 12345678", "deposit 123456789 100");
+		assertEquals(lines, roundTrip(ID, lines, lines.size()));
+	}
+
+	@Test
+	void any_owner_id_can_be_packed_for_deposits() {
+		List<String> lines = Arrays.asList("deposit 1234 100", "withdraw 1234 50");
+		assertEquals(lines, roundTrip("1234", lines));
+	}
+
+	@Test
+	void single_line_is_rendered_by_index() {
+		CommandHistory history = new CommandHistory();
+		history.add(ID, "deposit 12345678 100");
+		history.add(ID, "deposit 12345678 1e3");
+		history.add(ID, "transfer 00000042 12345678 7.5");
+		assertEquals("deposit 12345678 100", history.get(ID, 0));
+		assertEquals("deposit 12345678 1e3", history.get(ID, 1));
+		assertEquals("transfer 00000042 12345678 7.5", history.get(ID, 2));
+	}
+
+	@Test
+	void prefix_keeps_the_lines_it_was_taken_with_while_the_history_grows() {
+		CommandHistory history = new CommandHistory();
+		history.add(ID, "deposit 12345678 100");
+		history.add(ID, "deposit 12345678 1e3");
+		CommandHistory prefix = history.prefix();
+		for (int i = 0; i < 20; i++) {
+			history.add(ID, "withdraw 12345678 " + i);
+			history.add(ID, "withdraw  12345678 " + i);
+		}
+		assertEquals(2, prefix.size());
+		assertEquals("deposit 12345678 100", prefix.get(ID, 0));
+		assertEquals("deposit 12345678 1e3", prefix.get(ID, 1));
+		assertThrows(IllegalStateException.class, () -> prefix.add(ID, "deposit 12345678 5"));
+	}
+}
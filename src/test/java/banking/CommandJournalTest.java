@@ -0,0 +1,131 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CommandJournalTest {
+	@TempDir
+	Path folder;
+
+	private List<String> replay(Path file) throws IOException {
+		List<String> records = new ArrayList<>();
+		CommandJournal.replay(file, (kind, command) -> records.add(kind + " " + command));
+		return records;
+	}
+
+	@Test
+	void records_are_replayed_in_order_with_their_kind() throws IOException {
+		Path file = folder.resolve("journal");
+		try (CommandJournal journal = new CommandJournal(file)) {
+			journal.append(CommandJournal.VALID, "create checking 12345678 1.0");
+			journal.append(CommandJournal.INVALID, "deposit 12345679 100");
+			journal.append(CommandJournal.VALID, "d\u00e9posit 12345678 100");
+		}
+		assertEquals(Arrays.asList("1 create checking 12345678 1.0", "2 deposit 12345679 100",
+				"1 d\u00e9posit 12345678 100"), replay(file));
+	}
+
+	@Test
+	void records_are_synced_in_groups() throws IOException {
+		Path file = folder.resolve("journal");
+		CommandJournal journal = new CommandJournal(file, 4, 1, TimeUnit.HOURS);
+		for (int i = 0; i < 10; i++) {
+			journal.append(CommandJournal.VALID, "pass 1");
+		}
+		assertEquals(2, journal.syncs());
+		journal.close();
+		assertEquals(3, journal.syncs());
+		assertEquals(10, replay(file).size());
+	}
+
+	@Test
+	void records_waiting_longer_than_the_window_are_synced() throws IOException {
+		Path file = folder.resolve("journal");
+		try (CommandJournal journal = new CommandJournal(file, 1000, 0, TimeUnit.MILLISECONDS)) {
+			journal.append(CommandJournal.VALID, "pass 1");
+			journal.append(CommandJournal.VALID, "pass 2");
+			assertEquals(2, journal.syncs());
+		}
+	}
+
+	@Test
+	void records_are_synced_once_the_window_passes_with_no_further_appends() throws Exception {
+		Path file = folder.resolve("journal");
+		try (CommandJournal journal = new CommandJournal(file, 1000, 20, TimeUnit.MILLISECONDS)) {
+			journal.append(CommandJournal.VALID, "pass 1");
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (journal.syncs() == 0 && System.nanoTime() < deadline) {
+				Thread.sleep(5);
+			}
+			assertEquals(1, journal.syncs());
+		}
+	}
+
+	@Test
+	void opening_reports_how_many_bytes_of_a_torn_record_it_dropped() throws IOException {
+		Path file = folder.resolve("journal");
+		try (CommandJournal journal = new CommandJournal(file)) {
+			journal.append(CommandJournal.VALID, "create checking 12345678 1.0");
+			journal.append(CommandJournal.VALID, "deposit 12345678 100");
+		}
+		long whole = Files.size(file);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(whole - 3);
+		}
+		int torn = (int) (whole - 3) - (4 + 1 + "create checking 12345678 1.0".length() + 4);
+		try (CommandJournal journal = new CommandJournal(file)) {
+			assertEquals(torn, journal.droppedBytes());
+		}
+		try (CommandJournal journal = new CommandJournal(file)) {
+			assertEquals(0, journal.droppedBytes());
+		}
+	}
+
+	@Test
+	void torn_last_record_is_dropped_and_appending_continues_after_the_last_whole_one() throws IOException {
+		Path file = folder.resolve("journal");
+		try (CommandJournal journal = new CommandJournal(file)) {
+			journal.append(CommandJournal.VALID, "create checking 12345678 1.0");
+			journal.append(CommandJournal.VALID, "deposit 12345678 100");
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(Files.size(file) - 3);
+		}
+		assertEquals(Arrays.asList("1 create checking 12345678 1.0"), replay(file));
+		try (CommandJournal journal = new CommandJournal(file)) {
+			journal.append(CommandJournal.VALID, "deposit 12345678 200");
+		}
+		assertEquals(Arrays.asList("1 create checking 12345678 1.0", "1 deposit 12345678 200"), replay(file));
+	}
+
+	@Test
+	void master_control_recovers_the_same_output_from_its_journal() throws IOException {
+		Path file = folder.resolve("journal");
+		List<String> input = Arrays.asList("create checking 12345678 1.0", "deposit 12345678 700",
+				"withdraw 12345678 50", "create savings 12345679 0.6", "transfer 12345678 12345679 100",
+				"deposit 99999999 100", "pass 2");
+		List<String> expected;
+		try (CommandJournal journal = new CommandJournal(file)) {
+			Bank bank = new Bank();
+			expected = new MasterControl(new Validator(bank), new CommandProcessor(bank), new CommandStorage(bank),
+					journal).start(input);
+		}
+		Bank bank = new Bank();
+		MasterControl recovered = new MasterControl(new Validator(bank), new CommandProcessor(bank),
+				new CommandStorage(bank));
+		recovered.recover(file);
+		assertEquals(expected, recovered.start(new ArrayList<>()));
+	}
+}
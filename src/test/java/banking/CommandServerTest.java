@@ -0,0 +1,176 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CommandServerTest {
+	CommandServer server;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = new CommandServer(0);
+		server.start();
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		server.close();
+	}
+
+	private class Client implements AutoCloseable {
+		final Socket socket;
+		final BufferedReader reader;
+		final PrintWriter writer;
+
+		Client() throws IOException {
+			socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+			reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			writer = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+		}
+
+		String send(String command) throws IOException {
+			writer.println(command);
+			return reader.readLine();
+		}
+
+		@Override
+		public void close() throws IOException {
+			socket.close();
+		}
+	}
+
+	@Test
+	void each_command_gets_one_reply() throws IOException {
+		try (Client client = new Client()) {
+			assertEquals("valid Checking 12345678 0.00 1.00", client.send("create checking 12345678 1.0"));
+			assertEquals("valid Checking 12345678 100.00 1.00", client.send("deposit 12345678 100"));
+			assertEquals("invalid", client.send("deposit 12345678 5000"));
+			assertEquals("valid Savings 12345679 0.00 2.00", client.send("create savings 12345679 2"));
+			assertEquals("valid Checking 12345678 60.00 1.00; Savings 12345679 40.00 2.00",
+					client.send("transfer 12345678 12345679 40"));
+			assertEquals("valid", client.send("pass 1"));
+			assertEquals("invalid", client.send("deposit 12345678 abc"));
+			assertEquals("invalid", client.send(""));
+		}
+	}
+
+	@Test
+	void sessions_share_one_bank() throws IOException {
+		try (Client first = new Client(); Client second = new Client()) {
+			first.send("create checking 12345678 1.0");
+			assertEquals("valid Checking 12345678 25.00 1.00", second.send("deposit 12345678 25"));
+			assertEquals("invalid", second.send("create savings 12345678 1.0"));
+		}
+	}
+
+	@Test
+	void concurrent_sessions_do_not_lose_deposits() throws Exception {
+		try (Client client = new Client()) {
+			client.send("create savings 12345678 1.0");
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				futures.add(executor.submit(() -> {
+					try (Client client = new Client()) {
+						for (int i = 0; i < 200; i++) {
+							client.send("deposit 12345678 1");
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1600, server.getBank().getAmount("12345678"));
+	}
+
+	@Test
+	void accept_until_closed_blocks_the_caller_until_close() throws Exception {
+		CommandServer blocking = new CommandServer(0);
+		Thread caller = new Thread(blocking::acceptUntilClosed);
+		caller.start();
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), blocking.getPort());
+				PrintWriter writer = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+				BufferedReader reader = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+			writer.println("create checking 12345678 1.0");
+			assertEquals("valid Checking 12345678 0.00 1.00", reader.readLine());
+		}
+		assertTrue(caller.isAlive());
+		blocking.close();
+		caller.join(5000);
+		assertFalse(caller.isAlive());
+	}
+
+	@Test
+	void failing_accept_backs_off_instead_of_spinning() throws Exception {
+		AtomicInteger accepts = new AtomicInteger();
+		ServerSocket failing = new ServerSocket() {
+			@Override
+			public Socket accept() throws IOException {
+				accepts.incrementAndGet();
+				throw new IOException("Too many open files");
+			}
+		};
+		CommandServer backingOff = new CommandServer(new ConcurrentBank(), failing);
+		Thread caller = new Thread(backingOff::acceptUntilClosed);
+		long started = System.nanoTime();
+		caller.start();
+		long deadline = started + TimeUnit.SECONDS.toNanos(10);
+		while (accepts.get() < 8 && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+		backingOff.close();
+		caller.join(5000);
+		assertFalse(caller.isAlive());
+		// Eight accepts in a row means seven waits of 1, 2, ... 64 ms in between.
+		assertTrue(accepts.get() >= 8, accepts.get() + " accepts");
+		assertTrue(elapsed >= 127, elapsed + " ms");
+	}
+
+	@Test
+	void close_ends_sessions_still_waiting_for_a_line() throws Exception {
+		CommandServer closing = new CommandServer(0);
+		closing.start();
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), closing.getPort());
+				PrintWriter writer = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+				BufferedReader reader = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+			socket.setSoTimeout(10000);
+			writer.println("create checking 12345678 1.0");
+			assertEquals("valid Checking 12345678 0.00 1.00", reader.readLine());
+			long started = System.nanoTime();
+			closing.close();
+			assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(4));
+			assertEquals(null, reader.readLine());
+		}
+	}
+}
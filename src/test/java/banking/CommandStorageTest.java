@@ -1,7 +1,14 @@
 package banking;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -38,4 +45,44 @@ public class CommandStorageTest {
 
 	}
 
+	// What output() gives, as String.getBytes would encode it.
+	private byte[] expectedBytes() {
+		StringBuilder joined = new StringBuilder();
+		for (String line : commandStorage.output()) {
+			joined.append(line).append('\n');
+		}
+		return joined.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void streamed_output_has_the_same_lines_as_output() throws IOException {
+		MasterControl masterControl = new MasterControl(new Validator(bank), new CommandProcessor(bank),
+				commandStorage);
+		masterControl.start(Arrays.asList("create checking 12345678 1.0", "Deposit 12345678 700.5",
+				"create savings 12345679 0.6", "deposit 12345679 1e2", "TRANSFER 12345678 12345679 100",
+				"pass 1", "d\u00e9posit 12345678 100", "deposit 99999999 \ud83d\ude00", "deposit 1 \ud83d"));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		commandStorage.output(bytes);
+
+		assertArrayEquals(expectedBytes(), bytes.toByteArray());
+	}
+
+	@Test
+	void streamed_output_larger_than_the_buffer_is_complete() throws IOException {
+		StringBuilder longCommand = new StringBuilder("Kreate");
+		for (int i = 0; i < LineWriter.BUFFER_BYTES; i++) {
+			longCommand.append(i % 2 == 0 ? 'x' : '\u00e9');
+		}
+		bank.create(ID.toString(), new Checking(0.0, 1.0));
+		for (int i = 0; i < 10000; i++) {
+			commandStorage.storeValidCommand("deposit " + ID + " " + i + ".25");
+		}
+		commandStorage.addInvalidCommand(longCommand.toString());
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		commandStorage.output(Channels.newChannel(bytes));
+
+		assertArrayEquals(expectedBytes(), bytes.toByteArray());
+	}
 }
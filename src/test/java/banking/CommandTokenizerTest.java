@@ -0,0 +1,98 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CommandTokenizerTest {
+	CommandTokenizer tokens;
+
+	@BeforeEach
+	void setUp() {
+		tokens = new CommandTokenizer();
+	}
+
+	private String[] tokensOf(String line) {
+		tokens.reset(line);
+		String[] result = new String[tokens.count()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = tokens.token(i);
+		}
+		return result;
+	}
+
+	@Test
+	void tokens_match_split_on_single_space() {
+		String[] lines = { "create checking 12345678 1.0", "create CD   62345679 9 1000", "  create CD 72345679 9 1000",
+				"create CD 72345670 9 1000  ", "", " ", "   ", "deposit", "a  b" };
+		for (String line : lines) {
+			assertArrayEquals(line.split(" "), tokensOf(line), line);
+		}
+	}
+
+	@Test
+	void tokenizer_is_reusable() {
+		tokens.reset("transfer 12345678 98765432 300");
+		assertEquals(4, tokens.count());
+		tokens.reset("pass 1");
+		assertEquals(2, tokens.count());
+		assertEquals("1", tokens.token(1));
+	}
+
+	@Test
+	void words_are_compared_ignoring_case() {
+		tokens.reset("creAte cHecKing 98765432 0.01");
+		assertTrue(tokens.is(0, "create"));
+		assertTrue(tokens.is(1, "Checking"));
+		assertFalse(tokens.is(1, "Check"));
+	}
+
+	@Test
+	void numbers_parse_like_the_jdk() {
+		String[] numbers = { "0", "700", "0.01", "1000.50", "-200", "+5", ".5", "5.", "007", "1e3", "123456789012345678",
+				"0.1234567890123456789", "NaN" };
+		for (String number : numbers) {
+			tokens.reset("deposit " + number);
+			assertEquals(Double.parseDouble(number), tokens.parseDouble(1), number);
+		}
+		tokens.reset("pass 60 -12 +7");
+		assertEquals(60, tokens.parseInt(1));
+		assertEquals(-12, tokens.parseInt(2));
+		assertEquals(7, tokens.parseInt(3));
+	}
+
+	@Test
+	void malformed_numbers_are_rejected() {
+		tokens.reset("deposit abc 1a345672");
+		assertThrows(NumberFormatException.class, () -> tokens.parseDouble(1));
+		assertFalse(tokens.isInt(2));
+	}
+
+	@Test
+	void integer_check_agrees_with_integer_parse_int() {
+		String[] tokens = { "12345678", "+1234567", "-1234567", "1234567a", "", "-", "+", "12.45678", "1234567890",
+				"2147483648", "\u0661\u0662\u0663\u0664\u0665\u0666\u0667\u0668" };
+		for (String token : tokens) {
+			boolean parses;
+			try {
+				Integer.parseInt(token);
+				parses = true;
+			} catch (NumberFormatException e) {
+				parses = false;
+			}
+			this.tokens.reset("deposit " + token);
+			assertEquals(parses, this.tokens.count() > 1 && this.tokens.isInt(1), token);
+		}
+	}
+
+	@Test
+	void missing_token_is_out_of_bounds() {
+		tokens.reset("pass");
+		assertThrows(ArrayIndexOutOfBoundsException.class, () -> tokens.token(1));
+	}
+}
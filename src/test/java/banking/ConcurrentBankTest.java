@@ -0,0 +1,262 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentBankTest {
+	public static final String ID = "12345678";
+	public static final double APR = 0.6;
+	public static final int THREADS = 8;
+	ConcurrentBank bank;
+	ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		bank = new ConcurrentBank(4);
+		executor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	private void runOnAllThreads(Runnable task) throws Exception {
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executor.submit(task));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+	}
+
+	@Test
+	void behaves_like_bank_on_one_thread() {
+		bank.create(ID, AccountType.CHECKING, 0, APR);
+		bank.depositIn(ID, 100);
+		bank.withdrawFrom(ID, 10);
+		assertEquals(90, bank.getAmount(ID));
+		assertTrue(bank.containsKey(ID));
+		assertTrue(bank.getId(ID) instanceof Checking);
+		bank.remove(ID);
+		assertFalse(bank.containsKey(ID));
+		assertNull(bank.getId(ID));
+		assertEquals(0, bank.size());
+	}
+
+	@Test
+	void concurrent_deposits_to_one_account_are_not_lost() throws Exception {
+		bank.create(ID, AccountType.SAVINGS, 0, APR);
+		runOnAllThreads(() -> {
+			for (int i = 0; i < 10000; i++) {
+				bank.depositIn(ID, 1);
+			}
+		});
+		assertEquals(THREADS * 10000, bank.getAmount(ID));
+	}
+
+	@Test
+	void lock_free_account_keeps_every_deposit_while_the_store_grows() throws Exception {
+		bank.create(ID, new Checking(0.0, APR).lockFree());
+		assertTrue(bank.getAccounts().lockFree(bank.slotOf(ID)));
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 5000; i++) {
+					bank.depositIn(ID, 2);
+					bank.withdrawFrom(ID, 1);
+					if (i % 10 == 0) {
+						bank.create("" + (20000000 + thread * 10000 + i), AccountType.CHECKING, 0, APR);
+					}
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		assertEquals(THREADS * 5000, bank.getAmount(ID));
+		assertEquals(THREADS * 500 + 1, bank.size());
+	}
+
+	@Test
+	void account_already_in_the_bank_can_be_made_lock_free() throws Exception {
+		bank.create(ID, AccountType.SAVINGS, 0, APR);
+		bank.makeLockFree(ID);
+		runOnAllThreads(() -> {
+			for (int i = 0; i < 10000; i++) {
+				bank.depositIn(ID, 1);
+			}
+		});
+		assertEquals(THREADS * 10000, bank.getAmount(ID));
+		bank.passTime(1);
+		assertEquals(1, bank.getTime(ID));
+	}
+
+	@Test
+	void lock_free_savings_status_read_through_the_bank_counts_every_emptying_withdrawal() throws Exception {
+		bank.create(ID, new Savings(0.0, APR).lockFree());
+		bank.depositIn(ID, 1000);
+		runOnAllThreads(() -> {
+			bank.withdrawFrom(ID, 100);
+			bank.withdrawFrom(ID, 100);
+			bank.getWithdrawalStatus(ID);
+		});
+		assertEquals(0, bank.getAmount(ID));
+		assertTrue(bank.getWithdrawalStatus(ID));
+	}
+
+	@Test
+	void accounts_created_while_others_are_used_keep_their_balances() throws Exception {
+		bank.create(ID, AccountType.CHECKING, 0, APR);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 2000; i++) {
+					String id = "" + (20000000 + thread * 10000 + i);
+					bank.create(id, AccountType.CHECKING, 0, APR);
+					bank.depositIn(id, i);
+					bank.depositIn(ID, 1);
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		assertEquals(THREADS * 2000 + 1, bank.size());
+		assertEquals(THREADS * 2000, bank.getAmount(ID));
+		for (int t = 0; t < THREADS; t++) {
+			for (int i = 0; i < 2000; i++) {
+				assertEquals(i, bank.getAmount("" + (20000000 + t * 10000 + i)));
+			}
+		}
+	}
+
+	@Test
+	void concurrent_transfers_conserve_total_balance() throws Exception {
+		int accounts = 16;
+		for (int i = 0; i < accounts; i++) {
+			bank.create("" + (30000000 + i), AccountType.CHECKING, 0, APR);
+			bank.depositIn("" + (30000000 + i), 1000);
+		}
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			futures.add(executor.submit(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < 20000; i++) {
+					String from = "" + (30000000 + random.nextInt(accounts));
+					String to = "" + (30000000 + random.nextInt(accounts));
+					bank.transfer(from, to, random.nextInt(400));
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get(60, TimeUnit.SECONDS);
+		}
+		double total = 0;
+		for (int i = 0; i < accounts; i++) {
+			total += bank.getAmount("" + (30000000 + i));
+		}
+		assertEquals(accounts * 1000, total);
+	}
+
+	@Test
+	void transfer_is_capped_at_source_balance() {
+		bank.create(ID, AccountType.CHECKING, 0, APR);
+		bank.create("12345679", AccountType.SAVINGS, 0, APR);
+		bank.depositIn(ID, 100);
+		bank.transfer(ID, "12345679", 300);
+		assertEquals(0, bank.getAmount(ID));
+		assertEquals(100, bank.getAmount("12345679"));
+	}
+
+	@Test
+	void pass_time_closes_empty_accounts() {
+		bank.create(ID, AccountType.CHECKING, 0, APR);
+		bank.create("12345679", AccountType.SAVINGS, 0, APR);
+		bank.depositIn("12345679", 500);
+		bank.passTime(1);
+		assertEquals(1, bank.size());
+		assertFalse(bank.containsKey(ID));
+		assertEquals(List.of("12345679"), bank.getAccountNumber());
+	}
+
+	@Test
+	void queries_during_writes_see_whole_accounts() throws Exception {
+		bank.create(ID, AccountType.CHECKING, 0, APR);
+		bank.depositIn(ID, 1000);
+		double opening = bank.getAmount(ID);
+		List<Future<?>> futures = new ArrayList<>();
+		futures.add(executor.submit(() -> {
+			for (int i = 0; i < 20000; i++) {
+				bank.depositIn(ID, 1);
+				bank.create("2" + (1000000 + i % 64), AccountType.SAVINGS, 0, 1);
+				if (i % 1000 == 0) {
+					bank.passTime(1);
+				}
+			}
+		}));
+		for (int reader = 0; reader < THREADS - 1; reader++) {
+			futures.add(executor.submit(() -> {
+				double last = opening;
+				for (int i = 0; i < 20000; i++) {
+					AccountSnapshot snapshot = bank.query(ID);
+					assertEquals(ID, snapshot.getId());
+					assertEquals(AccountType.CHECKING, snapshot.getType());
+					assertEquals(APR, snapshot.getAPR());
+					assertTrue(snapshot.getAmount() >= last);
+					last = snapshot.getAmount();
+					AccountSnapshot other = bank.query("2" + (1000000 + i % 64));
+					if (other != null) {
+						assertEquals(AccountType.SAVINGS, other.getType());
+					}
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		assertEquals(bank.getAmount(ID), bank.query(ID).getAmount());
+	}
+
+	@Test
+	void concurrent_batches_of_transfers_conserve_total_balance() throws Exception {
+		int accounts = 16;
+		for (int i = 0; i < accounts; i++) {
+			bank.create("" + (10000000 + i), AccountType.CHECKING, 0, APR);
+			bank.depositIn("" + (10000000 + i), 1000);
+		}
+		runOnAllThreads(() -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			for (int round = 0; round < 200; round++) {
+				MutationBatch batch = new MutationBatch();
+				for (int i = 0; i < 50; i++) {
+					batch.transfer("" + (10000000 + random.nextInt(accounts)), "" + (10000000 + random.nextInt(accounts)),
+							random.nextInt(400));
+				}
+				bank.applyBatch(batch);
+			}
+		});
+		double total = 0;
+		for (int i = 0; i < accounts; i++) {
+			total += bank.getAmount("" + (10000000 + i));
+		}
+		assertEquals(accounts * 1000, total);
+	}
+}
@@ -0,0 +1,71 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class IdIndexTest {
+	IdIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new IdIndex();
+	}
+
+	@Test
+	void eight_ascii_digits_are_keys() {
+		assertEquals(12345678, IdIndex.key("12345678"));
+		assertEquals(1234567, IdIndex.key("01234567"));
+		assertEquals(99999999, IdIndex.key("99999999"));
+	}
+
+	@Test
+	void other_ids_are_not_keys() {
+		assertEquals(IdIndex.NONE, IdIndex.key("1234567"));
+		assertEquals(IdIndex.NONE, IdIndex.key("123456789"));
+		assertEquals(IdIndex.NONE, IdIndex.key("+1234567"));
+		assertEquals(IdIndex.NONE, IdIndex.key("-1234567"));
+		assertEquals(IdIndex.NONE, IdIndex.key("1234567a"));
+		assertEquals(IdIndex.NONE, IdIndex.key("1234567\u0661"));
+	}
+
+	@Test
+	void missing_key_has_no_slot() {
+		assertEquals(IdIndex.NONE, index.get(12345678));
+		assertEquals(IdIndex.NONE, index.remove(12345678));
+	}
+
+	@Test
+	void put_replaces_slot_of_existing_key() {
+		assertEquals(IdIndex.NONE, index.put(12345678, 3));
+		assertEquals(3, index.put(12345678, 4));
+		assertEquals(4, index.get(12345678));
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void index_matches_hash_map_under_random_puts_and_removes() {
+		Random random = new Random(11);
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 200000; i++) {
+			int key = random.nextInt(5000);
+			if (random.nextInt(3) == 0) {
+				Integer removed = expected.remove(key);
+				assertEquals(removed == null ? IdIndex.NONE : removed, index.remove(key));
+			} else {
+				Integer previous = expected.put(key, i);
+				assertEquals(previous == null ? IdIndex.NONE : previous, index.put(key, i));
+			}
+		}
+		assertEquals(expected.size(), index.size());
+		for (int key = 0; key < 5000; key++) {
+			Integer slot = expected.get(key);
+			assertEquals(slot == null ? IdIndex.NONE : slot, index.get(key));
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class InterestEngineTest {
+	public static final String ID = "12345678";
+
+	@Test
+	void bulk_compounding_matches_account_loop_exactly() {
+		Random random = new Random(7);
+		int count = 2000;
+		for (int months = 1; months <= 60; months += 7) {
+			Account[] accounts = new Account[count];
+			double[] balances = new double[count];
+			double[] rates = new double[count];
+			for (int i = 0; i < count; i++) {
+				double apr = random.nextInt(1001) / 100.0;
+				accounts[i] = new Checking(0.0, apr);
+				accounts[i].depositIn(ID, random.nextInt(1000000) / 100.0);
+				balances[i] = accounts[i].getAmount(ID);
+				rates[i] = InterestEngine.monthlyRate(apr);
+			}
+
+			InterestEngine.compound(balances, rates, count, months);
+
+			for (int i = 0; i < count; i++) {
+				accounts[i].passTimeCalc(ID, months);
+				assertEquals(accounts[i].getAmount(ID), balances[i]);
+			}
+		}
+	}
+
+	@Test
+	void pass_time_matches_account_loop_for_every_account_type() {
+		Bank bank = new Bank();
+		Account checking = new Checking(0.0, 5.4);
+		Account savings = new Savings(0.0, 0.6);
+		Account cd = new CD(2000, 2.1);
+		bank.create("12345670", checking);
+		bank.create("12345671", savings);
+		bank.create("12345672", cd);
+		bank.depositIn("12345670", 100);
+		bank.depositIn("12345671", 1000);
+		Account[] expected = { new Checking(0.0, 5.4), new Savings(0.0, 0.6), new CD(2000, 2.1) };
+		expected[0].depositIn(ID, 100);
+		expected[1].depositIn(ID, 1000);
+
+		bank.passTime(13);
+
+		Account[] actual = { checking, savings, cd };
+		for (int i = 0; i < actual.length; i++) {
+			expected[i].passTimeCalc(ID, 13);
+			assertEquals(expected[i].getAmount(ID), actual[i].getAmount(ID));
+			assertEquals(13, actual[i].getTime());
+		}
+	}
+}
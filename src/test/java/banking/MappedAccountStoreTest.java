@@ -0,0 +1,198 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Runs every AccountStoreTest against a mapped store as well.
+public class MappedAccountStoreTest extends AccountStoreTest {
+	@TempDir
+	Path folder;
+
+	private int stores;
+
+	@Override
+	AccountStore newStore(int capacity) {
+		try {
+			return new MappedAccountStore(folder.resolve("accounts" + stores++));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private List<String> ids(AccountStore store) {
+		List<String> ids = new ArrayList<>();
+		for (int slot = store.first(); slot != AccountStore.NONE; slot = store.next(slot)) {
+			ids.add(store.id(slot));
+		}
+		return ids;
+	}
+
+	// Writes into the file as a process killed part way through a call would have
+	// left it.
+	private static void putInt(Path file, long position, int value) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(0, value), position);
+		}
+	}
+
+	private static long next(int slot) {
+		return MappedAccountStore.HEADER_BYTES + (long) slot * MappedAccountStore.RECORD_BYTES
+				+ MappedAccountStore.NEXT;
+	}
+
+	// Three accounts, with the header as it was before the third was allocated.
+	private int[] threeWithTheThirdTorn(Path file) throws IOException {
+		int[] slots = new int[3];
+		try (MappedAccountStore store = new MappedAccountStore(file)) {
+			slots[0] = store.allocate(ID, AccountType.CHECKING, 100, 1, 0, false);
+			slots[1] = store.allocate(SECOND_ID, AccountType.SAVINGS, 50, 0.6, 0, false);
+			slots[2] = store.allocate(THIRD_ID, AccountType.CD, 1000, 2.1, 0, false);
+		}
+		putInt(file, MappedAccountStore.HEADER_LAST, slots[1]);
+		putInt(file, MappedAccountStore.HEADER_SIZE, 2);
+		return slots;
+	}
+
+	@Test
+	void reopening_frees_a_record_allocate_wrote_but_never_linked() throws IOException {
+		Path file = folder.resolve("ledger");
+		int[] slots = threeWithTheThirdTorn(file);
+		putInt(file, next(slots[1]), AccountStore.NONE);
+		try (MappedAccountStore store = new MappedAccountStore(file)) {
+			assertEquals(2, store.size());
+			assertEquals(Arrays.asList(ID, SECOND_ID), ids(store));
+			assertEquals(slots[2], store.allocate("12345671", AccountType.CHECKING, 0, 1, 0, false));
+			assertEquals(Arrays.asList(ID, SECOND_ID, "12345671"), ids(store));
+		}
+	}
+
+	@Test
+	void reopening_keeps_a_record_allocate_linked_before_it_updated_the_header() throws IOException {
+		Path file = folder.resolve("ledger");
+		threeWithTheThirdTorn(file);
+		try (MappedAccountStore store = new MappedAccountStore(file)) {
+			assertEquals(3, store.size());
+			store.allocate("12345671", AccountType.CHECKING, 0, 1, 0, false);
+		}
+		try (MappedAccountStore store = new MappedAccountStore(file)) {
+			assertEquals(4, store.size());
+			assertEquals(Arrays.asList(ID, SECOND_ID, THIRD_ID, "12345671"), ids(store));
+		}
+	}
+
+	@Test
+	void reopening_finishes_a_release_that_unlinked_its_record() throws IOException {
+		Path file = folder.resolve("ledger");
+		int[] slots = new int[3];
+		try (MappedAccountStore store = new MappedAccountStore(file)) {
+			slots[0] = store.allocate(ID, AccountType.CHECKING, 100, 1, 0, false);
+			slots[1] = store.allocate(SECOND_ID, AccountType.SAVINGS, 50, 0.6, 0, false);
+			slots[2] = store.allocate(THIRD_ID, AccountType.CD, 1000, 2.1, 0, false);
+		}
+		putInt(file, next(slots[0]), slots[2]);
+		try (MappedAccountStore store = new MappedAccountStore(file)) {
+			assertEquals(2, store.size());
+			assertEquals(Arrays.asList(ID, THIRD_ID), ids(store));
+			store.release(slots[2]);
+			assertEquals(Arrays.asList(ID), ids(store));
+			assertEquals(slots[2], store.allocate("12345671", AccountType.CHECKING, 0, 1, 0, false));
+			assertEquals(slots[1], store.allocate("12345672", AccountType.CHECKING, 0, 1, 0, false));
+		}
+	}
+
+	@Test
+	void accounts_are_still_there_after_reopening() throws IOException {
+		Path file = folder.resolve("ledger");
+		int savings;
+		try (MappedAccountStore store = new MappedAccountStore(file)) {
+			int first = store.allocate(ID, AccountType.CHECKING, 100, 1, 0, false);
+			savings = store.allocate(SECOND_ID, AccountType.SAVINGS, 50, 0.6, 3, false);
+			store.allocate(THIRD_ID, AccountType.CD, 1000, 2.1, 0, false);
+			store.withdraw(savings, 50);
+			store.release(first);
+		}
+		try (MappedAccountStore store = new MappedAccountStore(file)) {
+			assertEquals(2, store.size());
+			assertEquals(Arrays.asList(SECOND_ID, THIRD_ID), ids(store));
+			assertEquals(AccountType.SAVINGS, store.type(savings));
+			assertEquals(0, store.balance(savings));
+			assertEquals(0.6, store.apr(savings));
+			assertEquals(3, store.age(savings));
+			assertTrue(store.withdrawn(savings));
+			assertEquals(0, store.allocate("12345671", AccountType.CHECKING, 0, 1, 0, false));
+		}
+	}
+
+	@Test
+	void store_grows_past_one_segment_and_reopens() throws IOException {
+		Path file = folder.resolve("ledger");
+		int count = MappedAccountStore.SEGMENT_RECORDS + 10;
+		try (MappedAccountStore store = new MappedAccountStore(file)) {
+			for (int i = 0; i < count; i++) {
+				store.allocate("" + (10000000 + i), AccountType.CHECKING, i, 1, 0, false);
+			}
+		}
+		try (MappedAccountStore store = new MappedAccountStore(file)) {
+			assertEquals(count, store.size());
+			assertEquals("" + (10000000 + count - 1), store.id(count - 1));
+			assertEquals(count - 1, store.balance(count - 1));
+		}
+	}
+
+	@Test
+	void bank_over_a_reopened_store_has_the_same_accounts() throws IOException {
+		Path file = folder.resolve("ledger");
+		List<String> input = Arrays.asList("create checking 12345678 1.0", "deposit 12345678 700",
+				"create savings 12345679 0.6", "deposit 12345679 500", "withdraw 12345679 600",
+				"create cd 12345680 2.1 1000", "create checking 12345681 0.1", "pass 1",
+				"transfer 12345678 12345679 100");
+		Bank heap = new Bank();
+		CommandStorage heapStorage = new CommandStorage(heap);
+		new MasterControl(new Validator(heap), new CommandProcessor(heap), heapStorage).start(input);
+		try (MappedAccountStore store = new MappedAccountStore(file)) {
+			Bank bank = new Bank(store);
+			new MasterControl(new Validator(bank), new CommandProcessor(bank), new CommandStorage(bank))
+					.start(input);
+		}
+		try (MappedAccountStore store = new MappedAccountStore(file)) {
+			Bank bank = new Bank(store);
+			assertEquals(heap.getAccountNumber(), bank.getAccountNumber());
+			for (String id : heap.getAccountNumber()) {
+				assertEquals(heapStorage.formatAccountStatus(id), new CommandStorage(bank).formatAccountStatus(id));
+				assertEquals(heap.getTime(id), bank.getTime(id));
+				assertEquals(heap.getWithdrawalStatus(id), bank.getWithdrawalStatus(id));
+			}
+		}
+	}
+
+	@Test
+	void id_longer_than_a_record_holds_is_rejected() throws IOException {
+		try (MappedAccountStore store = new MappedAccountStore(folder.resolve("ledger"))) {
+			assertThrows(IllegalArgumentException.class,
+					() -> store.allocate("123456789012345678901234567890123", AccountType.CHECKING, 0, 1, 0, false));
+		}
+	}
+
+	@Test
+	void file_that_is_not_a_store_is_refused() throws IOException {
+		Path file = folder.resolve("ledger");
+		Files.write(file, "create checking 12345678 1.0".getBytes());
+		assertThrows(IOException.class, () -> new MappedAccountStore(file));
+	}
+}
@@ -0,0 +1,80 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedCommandFileTest {
+	@TempDir
+	Path folder;
+
+	private Path write(String content) throws IOException {
+		Path file = folder.resolve("commands.txt");
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private List<String> lines(Path file, int window) throws IOException {
+		List<String> lines = new ArrayList<>();
+		MappedCommandFile.forEachLine(file, window, line -> lines.add(line.toString()));
+		return lines;
+	}
+
+	@Test
+	void lines_are_split_like_read_line() throws IOException {
+		Path file = write("create checking 12345678 1.0\r\ndeposit 12345678 100\n\nwithdraw 12345678 50\rpass 1");
+		List<String> expected = Arrays.asList("create checking 12345678 1.0", "deposit 12345678 100", "",
+				"withdraw 12345678 50", "pass 1");
+		assertEquals(expected, lines(file, MappedCommandFile.DEFAULT_WINDOW));
+		assertEquals(expected, lines(file, 3));
+		assertEquals(expected, lines(file, 29));
+	}
+
+	@Test
+	void non_ascii_lines_are_decoded() throws IOException {
+		Path file = write("d\u00e9posit 12345678 100\n");
+		assertEquals(Arrays.asList("d\u00e9posit 12345678 100"), lines(file, 4));
+	}
+
+	@Test
+	void line_kept_past_its_window_no_longer_views_the_mapping() throws IOException {
+		Path file = write("deposit 12345678 100\npass 1\n");
+		List<CharSequence> kept = new ArrayList<>();
+		MappedCommandFile.forEachLine(file, 8, kept::add);
+		assertEquals(2, kept.size());
+		assertEquals(0, kept.get(0).length());
+		assertEquals(0, kept.get(1).length());
+	}
+
+	@Test
+	void empty_file_has_no_commands() throws IOException {
+		assertEquals(0, lines(write(""), 8).size());
+	}
+
+	@Test
+	void mapped_file_gives_same_output_as_list() throws IOException {
+		List<String> input = Arrays.asList("Create savings 12345678 0.6", "Deposit 12345678 700",
+				"Deposit 12345678 5000", "creAte cHecKing 98765432 0.01", "Deposit 98765432 300",
+				"Transfer 98765432 12345678 300", "Pass 1", "Create cd 23456789 1.2 2000");
+		Path file = write(String.join("\n", input) + "\n");
+
+		Bank bank = new Bank();
+		List<String> expected = new MasterControl(new Validator(bank), new CommandProcessor(bank),
+				new CommandStorage(bank)).start(input);
+
+		Bank mappedBank = new Bank();
+		List<String> actual = new ArrayList<>();
+		new MasterControl(new Validator(mappedBank), new CommandProcessor(mappedBank), new CommandStorage(mappedBank))
+				.start(file, actual::add);
+		assertEquals(expected, actual);
+	}
+}
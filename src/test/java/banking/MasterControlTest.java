@@ -2,11 +2,19 @@ package banking;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class MasterControlTest {
 	MasterControl masterControl;
@@ -87,4 +95,51 @@ public class MasterControlTest {
 		assertEquals("Deposit 12345678 5000", actual.get(4));
 	}
 
+	@Test
+	void streamed_commands_give_same_output_as_list() throws IOException {
+		input.add("Create savings 12345678 0.6");
+		input.add("Deposit 12345678 700");
+		input.add("creAte cHecKing 98765432 0.01");
+		input.add("Transfer 98765432 12345678 300");
+		input.add("depositt 12345678 100");
+		List<String> expected = newMasterControl().start(input);
+
+		List<String> fromIterator = new ArrayList<>();
+		masterControl.start(input.iterator(), fromIterator::add);
+		assertEquals(expected, fromIterator);
+
+		List<String> fromStream = new ArrayList<>();
+		newMasterControl().start(input.stream(), fromStream::add);
+		assertEquals(expected, fromStream);
+
+		List<String> fromReader = new ArrayList<>();
+		newMasterControl().start(new StringReader(String.join("\n", input)), fromReader::add);
+		assertEquals(expected, fromReader);
+	}
+
+	@Test
+	void command_file_output_written_to_a_channel_has_the_same_lines(@TempDir Path folder) throws IOException {
+		input.add("Create savings 12345678 0.6");
+		input.add("Deposit 12345678 700");
+		input.add("creAte cHecKing 98765432 0.01");
+		input.add("Transfer 98765432 12345678 300");
+		input.add("depositt 12345678 100");
+		Path commandFile = folder.resolve("commands");
+		Files.write(commandFile, input);
+		StringBuilder expected = new StringBuilder();
+		for (String line : newMasterControl().start(input)) {
+			expected.append(line).append('\n');
+		}
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		masterControl.start(commandFile, Channels.newChannel(output));
+
+		assertEquals(expected.toString(), new String(output.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	private MasterControl newMasterControl() {
+		Bank bank = new Bank();
+		return new MasterControl(new Validator(bank), new CommandProcessor(bank), new CommandStorage(bank));
+	}
+
 }
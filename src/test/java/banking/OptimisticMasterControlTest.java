@@ -0,0 +1,64 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class OptimisticMasterControlTest {
+
+	@Test
+	void output_is_same_as_sequential_for_any_thread_count() {
+		for (long seed = 0; seed < 20; seed++) {
+			List<String> input = Workloads.random(seed, 400);
+			List<String> expected = Workloads.sequential(input);
+			for (int threads = 1; threads <= 4; threads++) {
+				assertEquals(expected, new OptimisticMasterControl(new Bank(), threads).start(input));
+			}
+		}
+	}
+
+	@Test
+	void input_spanning_several_batches_gives_same_output() {
+		List<String> input = Workloads.random(7, 20000);
+		assertEquals(Workloads.sequential(input), new OptimisticMasterControl(new Bank(), 3).start(input));
+	}
+
+	@Test
+	void reader_input_gives_same_output() throws Exception {
+		List<String> input = Workloads.random(99, 300);
+		List<String> actual = new ArrayList<>();
+		new OptimisticMasterControl(new Bank(), 2).start(new StringReader(String.join("\n", input)), actual::add);
+		assertEquals(Workloads.sequential(input), actual);
+	}
+
+	@Test
+	void commands_on_accounts_changed_earlier_in_the_batch_are_validated_again() {
+		List<String> input = List.of("create savings 12345678 1", "deposit 12345678 100", "withdraw 12345678 50",
+				"withdraw 12345678 50", "create checking 12345678 1", "pass 1", "withdraw 12345678 10",
+				"transfer 12345678 12345679 10", "create checking 12345679 1", "transfer 12345678 12345679 10");
+		assertEquals(Workloads.sequential(input), new OptimisticMasterControl(new Bank(), 4).start(input));
+	}
+
+	@Test
+	void failing_command_is_rethrown_after_earlier_commands_ran() {
+		Bank bank = new Bank();
+		List<String> input = List.of("create checking 12345678 1", "deposit 12345678 100", "deposit 12345678 abc",
+				"deposit 12345678 100");
+		assertThrows(NumberFormatException.class, () -> new OptimisticMasterControl(bank, 2).start(input));
+		assertEquals(100, bank.getAmount("12345678"));
+	}
+
+	@Test
+	void command_that_only_fails_against_the_old_state_is_validated_again() {
+		List<String> input = List.of("deposit 12345678 abc");
+		assertEquals(Workloads.sequential(input), new OptimisticMasterControl(new Bank(), 2).start(input));
+		List<String> created = List.of("create checking 12345678 1", "deposit 12345678 abc");
+		assertThrows(NumberFormatException.class, () -> Workloads.sequential(created));
+		assertThrows(NumberFormatException.class, () -> new OptimisticMasterControl(new Bank(), 2).start(created));
+	}
+}
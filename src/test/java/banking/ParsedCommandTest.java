@@ -0,0 +1,62 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import banking.ParsedCommand.Operation;
+
+public class ParsedCommandTest {
+	ParsedCommand command;
+
+	@BeforeEach
+	void setUp() {
+		command = new ParsedCommand();
+	}
+
+	@Test
+	void create_command_fields_are_parsed() {
+		command.reset("Create cd 23456789 1.2 2000");
+		assertEquals(Operation.CREATE, command.operation());
+		assertEquals(AccountType.CD, command.accountType());
+		assertEquals("23456789", command.id());
+		assertEquals(1.2, command.apr());
+		assertEquals(2000, command.amount());
+	}
+
+	@Test
+	void transfer_command_fields_are_parsed() {
+		command.reset("Transfer 98765432 12345678 300");
+		assertEquals(Operation.TRANSFER, command.operation());
+		assertEquals("98765432", command.id());
+		assertEquals("12345678", command.targetId());
+		assertEquals(300, command.amount());
+	}
+
+	@Test
+	void deposit_and_pass_fields_are_parsed() {
+		command.reset("deposit 12345678 700.50");
+		assertEquals(Operation.DEPOSIT, command.operation());
+		assertEquals(700.50, command.amount());
+		command.reset("pass 12");
+		assertEquals(Operation.PASS, command.operation());
+		assertEquals(12, command.months());
+	}
+
+	@Test
+	void reused_command_does_not_keep_old_fields() {
+		command.reset("deposit 12345678 700");
+		assertEquals(700, command.amount());
+		command.reset("withdraw 98765432 50");
+		assertEquals("98765432", command.id());
+		assertEquals(50, command.amount());
+	}
+
+	@Test
+	void unknown_operation_has_no_op_code() {
+		assertNull(command.reset("depositt 12345678 100").operation());
+		assertNull(command.reset(" ").operation());
+	}
+}
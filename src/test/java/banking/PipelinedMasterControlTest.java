@@ -0,0 +1,58 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PipelinedMasterControlTest {
+
+	private PipelinedMasterControl pipeline(Bank bank) {
+		return new PipelinedMasterControl(new Validator(bank), new CommandProcessor(bank), new CommandStorage(bank));
+	}
+
+	@Test
+	void output_is_same_as_sequential() {
+		for (long seed = 0; seed < 20; seed++) {
+			List<String> input = Workloads.random(seed, 400);
+			assertEquals(Workloads.sequential(input), pipeline(new Bank()).start(input));
+		}
+	}
+
+	@Test
+	void input_longer_than_the_ring_gives_same_output() {
+		List<String> input = Workloads.random(7, 20000);
+		assertEquals(Workloads.sequential(input), pipeline(new Bank()).start(input));
+	}
+
+	@Test
+	void reader_input_gives_same_output() throws Exception {
+		List<String> input = Workloads.random(99, 300);
+		List<String> actual = new ArrayList<>();
+		pipeline(new Bank()).start(new StringReader(String.join("\n", input)), actual::add);
+		assertEquals(Workloads.sequential(input), actual);
+	}
+
+	@Test
+	void failing_command_is_rethrown_after_earlier_commands_ran() {
+		Bank bank = new Bank();
+		List<String> input = List.of("create checking 12345678 1", "deposit 12345678 100", "deposit 12345678 abc",
+				"deposit 12345678 100");
+		assertThrows(NumberFormatException.class, () -> pipeline(bank).start(input));
+		assertEquals(100, bank.getAmount("12345678"));
+	}
+
+	@Test
+	void can_be_started_again_with_more_commands() {
+		Bank bank = new Bank();
+		PipelinedMasterControl masterControl = pipeline(bank);
+		masterControl.start(List.of("create checking 12345678 1", "deposit 12345678 100"));
+		List<String> output = masterControl.start(List.of("withdraw 12345678 40"));
+		assertEquals(List.of("Checking 12345678 60.00 1.00", "deposit 12345678 100", "withdraw 12345678 40"),
+				output);
+	}
+}
@@ -22,7 +22,7 @@ public class SavingTest {
 
 	@Test
 	void default_amount_is_zero() {
-		assertEquals(0, savings.amount);
+		assertEquals(0, savings.getAmount(ID));
 	}
 
 }
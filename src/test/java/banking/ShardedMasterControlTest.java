@@ -0,0 +1,53 @@
+package banking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ShardedMasterControlTest {
+
+	@Test
+	void output_is_same_as_sequential_for_any_shard_count() {
+		for (long seed = 0; seed < 20; seed++) {
+			List<String> input = Workloads.random(seed, 400);
+			List<String> expected = Workloads.sequential(input);
+			for (int shards = 1; shards <= 4; shards++) {
+				assertEquals(expected, new ShardedMasterControl(shards).start(input));
+			}
+		}
+	}
+
+	@Test
+	void reader_input_gives_same_output() throws Exception {
+		List<String> input = Workloads.random(99, 300);
+		List<String> actual = new ArrayList<>();
+		new ShardedMasterControl(3).start(new StringReader(String.join("\n", input)), actual::add);
+		assertEquals(Workloads.sequential(input), actual);
+	}
+
+	@Test
+	void accounts_recreated_after_closing_are_listed_at_their_new_position() {
+		List<String> input = List.of("create checking 12345678 1", "create savings 12345679 1",
+				"deposit 12345679 500", "pass 1", "create checking 12345678 2", "deposit 12345678 10");
+		assertEquals(Workloads.sequential(input), new ShardedMasterControl(2).start(input));
+	}
+
+	@Test
+	void first_failing_command_is_rethrown() {
+		List<String> input = List.of("create checking 12345678 1", "create savings 12345679 1",
+				"deposit 12345679 abc", "create");
+		assertThrows(NumberFormatException.class, () -> new ShardedMasterControl(4).start(input));
+	}
+
+	@Test
+	void cannot_be_started_twice() {
+		ShardedMasterControl masterControl = new ShardedMasterControl(2);
+		masterControl.start(List.of("create checking 12345678 1"));
+		assertThrows(IllegalStateException.class, () -> masterControl.start(List.of()));
+	}
+}
@@ -0,0 +1,57 @@
+package banking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Random command streams over a dozen ids, and the output MasterControl gives
+// for them, for checking the parallel master controls against it.
+final class Workloads {
+	private Workloads() {
+	}
+
+	static List<String> sequential(List<String> input) {
+		Bank bank = new Bank();
+		return new MasterControl(new Validator(bank), new CommandProcessor(bank), new CommandStorage(bank))
+				.start(input);
+	}
+
+	static List<String> random(long seed, int commands) {
+		Random random = new Random(seed);
+		String[] ids = new String[12];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = "" + (10000000 + random.nextInt(90000000));
+		}
+		List<String> input = new ArrayList<>();
+		for (int i = 0; i < commands; i++) {
+			String id = ids[random.nextInt(ids.length)];
+			String other = ids[random.nextInt(ids.length)];
+			switch (random.nextInt(9)) {
+			case 0:
+				input.add("create checking " + id + " " + random.nextInt(11));
+				break;
+			case 1:
+				input.add("create savings " + id + " " + random.nextInt(11));
+				break;
+			case 2:
+				input.add("create cd " + id + " " + random.nextInt(11) + " " + (500 + random.nextInt(10000)));
+				break;
+			case 3:
+			case 4:
+				input.add("deposit " + id + " " + random.nextInt(1200));
+				break;
+			case 5:
+				input.add("withdraw " + id + " " + random.nextInt(500));
+				break;
+			case 6:
+			case 7:
+				input.add("transfer " + id + " " + other + " " + random.nextInt(500));
+				break;
+			default:
+				input.add(random.nextInt(4) == 0 ? "pass " + random.nextInt(14) : "deposit " + id);
+				break;
+			}
+		}
+		return input;
+	}
+}